@@ -0,0 +1,114 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Benchmark of the distance sensing of the robots.
+ */
+
+package ija.robots.actors;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ija.robots.common.Rect;
+
+/**
+ * Measures the ray casts that the robots use to find the distance to the
+ * nearest obstacle. Each invocation casts {@link #RAYS} rays from random
+ * positions in random directions, the same as the sense phase of a tick
+ * does for each robot. The ray casts are measured with and without SIMD;
+ * the benchmark JVM has the vector API module so that both can run when
+ * the benchmarks are built with the {@code simd} profile too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector" })
+public class SenseBench {
+    /** Number of rays cast by single invocation. */
+    public static final int RAYS = 1024;
+    private static final double SIDE = 5000;
+
+    @Param({ "100", "10000" })
+    public int obstacles;
+
+    @Param({ "false", "true" })
+    public boolean simd;
+
+    private ObstacleTree tree = new ObstacleTree();
+    private IntList stack = new IntList();
+    private double[] px = new double[RAYS];
+    private double[] py = new double[RAYS];
+    private double[] dx = new double[RAYS];
+    private double[] dy = new double[RAYS];
+
+    @Setup
+    public void setup() {
+        var rng = new Random(42);
+        var obsts = new ArrayList<Obstacle>();
+        for (int i = 0; i < obstacles; ++i) {
+            obsts.add(new Obstacle(new Rect(
+                rng.nextDouble() * SIDE,
+                rng.nextDouble() * SIDE,
+                10 + rng.nextDouble() * 100,
+                10 + rng.nextDouble() * 100
+            )));
+        }
+        tree.setSimd(simd);
+        tree.build(obsts);
+
+        for (int i = 0; i < RAYS; ++i) {
+            var a = rng.nextDouble() * Math.PI * 2;
+            px[i] = rng.nextDouble() * SIDE;
+            py[i] = rng.nextDouble() * SIDE;
+            dx[i] = Math.cos(a);
+            dy[i] = Math.sin(a);
+        }
+    }
+
+    /**
+     * Distance to the border of the room, done for each robot.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public double rectDistance() {
+        var res = 0.;
+        for (int i = 0; i < RAYS; ++i) {
+            res += ObstacleTree.rectDistance(
+                px[i], py[i], dx[i], dy[i], 0, 0, SIDE, SIDE
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Distance to the nearest obstacle, the rest of the sensing.
+     */
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public double rayCast() {
+        var res = 0.;
+        for (int i = 0; i < RAYS; ++i) {
+            var max = ObstacleTree.rectDistance(
+                px[i], py[i], dx[i], dy[i], 0, 0, SIDE, SIDE
+            );
+            res += tree.rayCast(px[i], py[i], dx[i], dy[i], max, stack);
+        }
+        return res;
+    }
+}
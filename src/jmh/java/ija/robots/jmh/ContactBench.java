@@ -0,0 +1,123 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Benchmark of resolving of the collisions.
+ */
+
+package ija.robots.jmh;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ija.robots.actors.Obstacle;
+import ija.robots.actors.Robot;
+import ija.robots.actors.Room;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+
+/**
+ * Measures tick of a room where every robot collides. The robots stand
+ * still and are placed back before each invocation, so the tick is
+ * dominated by the kind of collision given by the scenario:
+ * <ul>
+ * <li>Robots: pairs of overlapping robots</li>
+ * <li>Edges: robots overlapping the edges of obstacles</li>
+ * <li>Corners: robots overlapping the corners of obstacles</li>
+ * <li>Near: the obstacles of Edges, but the robots don't touch them</li>
+ * </ul>
+ * The result is time per robot. The ticks also sense the obstacles, so the
+ * cost of obstacle collisions is the difference between Edges or Corners
+ * and Near.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ContactBench {
+    /** Number of robots in the room. */
+    public static final int ROBOTS = 1024;
+    /** Distance between the groups of colliding objects. */
+    private static final double SPACING = 100;
+
+    @Param({ "Robots", "Edges", "Corners", "Near" })
+    public String scenario;
+
+    private Room room;
+    private ArrayList<Rect> start = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // the logging Level collides with the one of JMH
+        java.util.logging.Logger.getLogger("Room")
+            .setLevel(java.util.logging.Level.WARNING);
+
+        var cols = 32;
+        var side = cols * SPACING;
+        room = new Room(new Rect(0, 0, side, side * 2));
+        room.pool(null);
+
+        var d = Robot.RADIUS * 2;
+        for (int i = 0; i < ROBOTS; ++i) {
+            var x = i % cols * SPACING + SPACING / 4;
+            var y = i / cols * SPACING + SPACING / 4;
+            switch (scenario) {
+                case "Robots":
+                    // every second robot overlaps the previous one
+                    if (i % 2 == 1) {
+                        x = start.get(i - 1).x() + d * 0.7;
+                        y = start.get(i - 1).y();
+                    }
+                    break;
+                case "Edges":
+                    room.add(new Obstacle(
+                        new Rect(x + d * 0.7, y - d, d, d * 3)
+                    ));
+                    break;
+                case "Near":
+                    room.add(new Obstacle(
+                        new Rect(x + d * 1.7, y - d, d, d * 3)
+                    ));
+                    break;
+                default:
+                    room.add(new Obstacle(
+                        new Rect(x + d * 0.8, y + d * 0.8, d, d)
+                    ));
+                    break;
+            }
+            var rob = new Robot(new Vec2(x, y), 0, 0);
+            start.add(rob.hitbox());
+            room.add(rob);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        var robs = room.robots();
+        for (int i = 0; i < robs.size(); ++i) {
+            robs.get(i).hitbox(start.get(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROBOTS)
+    public Room tick() {
+        room.tick(0.01);
+        return room;
+    }
+}
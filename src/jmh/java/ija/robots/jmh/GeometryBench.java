@@ -0,0 +1,67 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Benchmark of the vector and rectangle arithmetic.
+ */
+
+package ija.robots.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+
+/**
+ * Measures the immutable {@link Vec2} and {@link Rect} operations used by
+ * the views and the older parts of the code. With {@code -prof gc} it shows
+ * whether the temporary objects are removed by escape analysis.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class GeometryBench {
+    private Vec2 a = new Vec2(3, 4);
+    private Vec2 b = new Vec2(-1, 2.5);
+    private Rect r = new Rect(10, 20, 30, 40);
+    private Rect s = new Rect(25, 35, 30, 40);
+    private double angle = 0.7;
+
+    @Benchmark
+    public double vecChain() {
+        return a.add(b).mul(0.5).sub(b).len();
+    }
+
+    @Benchmark
+    public Vec2 vecNew() {
+        // the result escapes, so it must be allocated
+        return a.add(b);
+    }
+
+    @Benchmark
+    public double vecUnit() {
+        return Vec2.unit(angle).mul(12).dot(a);
+    }
+
+    @Benchmark
+    public Rect rectMove() {
+        return r.moveBy(b);
+    }
+
+    @Benchmark
+    public boolean rectOverlaps() {
+        return r.overlaps(s) && r.contains(a.add(20, 30));
+    }
+}
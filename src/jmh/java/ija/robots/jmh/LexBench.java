@@ -0,0 +1,72 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Benchmark of the lexer of the room files.
+ */
+
+package ija.robots.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ija.robots.common.Vec2;
+import ija.robots.load.LoaderLex;
+import ija.robots.load.Token;
+
+/**
+ * Measures lexing of whole room file in the text format. The file is
+ * written by the room so it looks like a saved room.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class LexBench {
+    @Param({ "10000", "1000000" })
+    public int robots;
+
+    private ByteBuffer file;
+
+    @Setup
+    public void setup() throws Exception {
+        Logger.getLogger("Room").setLevel(Level.WARNING);
+        var room = Rooms.random(robots, robots / 100, 42);
+        var b = room.bounds();
+        var out = new ByteArrayOutputStream();
+        room.snapshot(new Vec2(b.width(), b.height()))
+            .write(Channels.newChannel(out));
+        file = ByteBuffer.wrap(out.toByteArray());
+    }
+
+    @Benchmark
+    public double next() throws Exception {
+        var lex = new LoaderLex(file.duplicate());
+        var res = 0.;
+        for (var t = lex.next(); t != Token.Eof; t = lex.next()) {
+            if (t == Token.Number) {
+                res += lex.getNum();
+            } else if (t == Token.Ident) {
+                res += lex.getString().length();
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Rooms used by the benchmarks.
+ */
+
+package ija.robots.jmh;
+
+import java.util.Random;
+
+import ija.robots.actors.Obstacle;
+import ija.robots.actors.Robot;
+import ija.robots.actors.Room;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+
+/**
+ * Creates rooms for the benchmarks. The density of the objects is the same
+ * for all the sizes.
+ */
+final class Rooms {
+    /** Area of the room per single robot. */
+    static final double AREA = 150 * 150;
+
+    private Rooms() {
+    }
+
+    /**
+     * Creates room with randomly placed moving robots and walls in a grid.
+     * @param robots Number of robots.
+     * @param obstacles Number of obstacles.
+     * @param seed Seed of the random generator.
+     * @return The new room.
+     */
+    static Room random(int robots, int obstacles, long seed) {
+        var side = Math.sqrt(Math.max(robots, obstacles) * AREA);
+        var room = new Room(new Rect(0, 0, side, side));
+        var rng = new Random(seed);
+
+        // thin walls in a grid like in a maze
+        var cols = (int)Math.ceil(Math.sqrt(obstacles));
+        var cell = side / Math.max(cols, 1);
+        for (int i = 0; i < obstacles; ++i) {
+            var x = i % cols * cell;
+            var y = i / cols * cell;
+            if (rng.nextBoolean()) {
+                room.add(new Obstacle(new Rect(x, y, cell / 2, 22)));
+            } else {
+                room.add(new Obstacle(new Rect(x, y, 22, cell / 2)));
+            }
+        }
+
+        for (int i = 0; i < robots; ++i) {
+            room.add(new Robot(
+                new Vec2(rng.nextDouble() * side, rng.nextDouble() * side),
+                20,
+                rng.nextDouble() * Math.PI * 2
+            ));
+        }
+        return room;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Benchmark of how ticks scale with the number of threads.
+ */
+
+package ija.robots.jmh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ija.robots.actors.Room;
+
+/**
+ * Measures single tick of a large room on pools with different number of
+ * threads. With linear scaling the time halves when the threads double.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ScalingBench {
+    @Param({ "100000" })
+    public int robots;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private Room room;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Logger.getLogger("Room").setLevel(Level.WARNING);
+        room = Rooms.random(robots, 0, 42);
+        pool = threads == 1 ? null : new ForkJoinPool(threads);
+        room.pool(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Room tick() {
+        room.tick(0.01);
+        return room;
+    }
+}
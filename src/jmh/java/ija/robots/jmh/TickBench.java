@@ -0,0 +1,63 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Benchmark of whole ticks of the simulation.
+ */
+
+package ija.robots.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ija.robots.actors.CollisionMode;
+import ija.robots.actors.Room;
+
+/**
+ * Measures single tick of a room on one thread. The robots keep moving
+ * between the invocations, so this is the steady state of the simulation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class TickBench {
+    @Param({ "1000", "10000", "100000" })
+    public int robots;
+
+    @Param({ "0", "1000" })
+    public int obstacles;
+
+    @Param({ "Ordered", "Jacobi" })
+    public CollisionMode mode;
+
+    private Room room;
+
+    @Setup
+    public void setup() {
+        Logger.getLogger("Room").setLevel(Level.WARNING);
+        room = Rooms.random(robots, obstacles, 42);
+        room.pool(null);
+        room.collisionMode(mode);
+    }
+
+    @Benchmark
+    public Room tick() {
+        room.tick(0.01);
+        return room;
+    }
+}
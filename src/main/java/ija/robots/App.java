@@ -16,6 +16,8 @@ import ija.robots.actors.Room;
 import ija.robots.common.Rect;
 import ija.robots.common.Vec2;
 import ija.robots.load.Loader;
+import ija.robots.view.RenderMode;
+import ija.robots.view.RoomView;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
@@ -37,6 +39,7 @@ import javafx.stage.Stage;
  */
 public class App extends Application {
     private Room room;
+    private RoomView roomView;
     private HBox simMenu;
     private Menu menu;
     private ReditMenu reditMenu;
@@ -65,10 +68,12 @@ public class App extends Application {
             reditMenu = new ReditMenu();
             room = new Room(new Rect(0, 0, WIDTH, viewHeight(HEIGHT)));
 
+            // add before the simulation starts running on its own thread
             room.add(new Obstacle(new Rect(100, 200, 60, 60)));
             room.add(new ControlRobot(new Vec2(200, 100)));
             room.add(new Robot(new Vec2(201, 200), 0, 0));
             room.add(new AutoRobot(new Vec2(300, 100)));
+            roomView = new RoomView(room);
 
             menu = new Menu(room, new Rect(0, 0, WIDTH, viewHeight(HEIGHT)));
             var menuButton = new Button("menu");
@@ -77,7 +82,7 @@ public class App extends Application {
             room.setOnSelect(e -> reditMenu.select(e));
             reditMenu.setOnRemove(e -> room.remove(e));
             reditMenu.setOnChangeRobot((o, n) -> room.changeRobot(o, n));
-            stage.setOnCloseRequest(e -> room.run(false));
+            stage.setOnCloseRequest(e -> roomView.run(false));
 
             // Robot[] robots = {
             //     new Robot(new Circle(3.5, -4.5, 0.4), Vec2.unit(0)),
@@ -90,7 +95,7 @@ public class App extends Application {
             stack.setAlignment(Pos.TOP_LEFT);
             stack
                 .getChildren()
-                .addAll(room.getGraphics(), menuButton, menu.getGraphics());
+                .addAll(roomView.getGraphics(), menuButton, menu.getGraphics());
 
             var root = new FlowPane(
                 Orientation.VERTICAL,
@@ -100,6 +105,9 @@ public class App extends Application {
             );
 
             Scene scene = new Scene(root, WIDTH, HEIGHT);
+            scene.setEventDispatcher(
+                roomView.guard(scene.getEventDispatcher())
+            );
 
             ChangeListener<Number> resizeListener =
                 (observable, oldValue, newValue) -> {
@@ -107,7 +115,9 @@ public class App extends Application {
                         scene.getWidth(),
                         viewHeight(scene.getHeight())
                     );
-                    room.resize(new Rect(0, 0, rsize.width(), rsize.height()));
+                    roomView.resize(
+                        new Rect(0, 0, rsize.width(), rsize.height())
+                    );
                     menu.resize(new Vec2(rsize.width(), rsize.height()));
                 };
             stage.widthProperty().addListener(resizeListener);
@@ -128,7 +138,7 @@ public class App extends Application {
         var path = new TextField();
 
         var save = new Button("save");
-        save.setOnMouseClicked(e -> room.save(stage, path.getText()));
+        save.setOnMouseClicked(e -> roomView.save(stage, path.getText()));
 
         var load = new Button("load");
         load.setOnMouseClicked(e -> {
@@ -139,13 +149,35 @@ public class App extends Application {
         var but = new Button("pause");
         but.setPrefWidth(60);
         but.setOnMouseClicked(e -> {
-            var run = !room.isRunning();
+            var run = !roomView.isRunning();
             log.info((run ? "Pausing" : "Playing") + " the simulation.");
             but.setText(run ? "pause" : "play");
-            room.run(run);
+            roomView.run(run);
+        });
+
+        var render = new Button("canvas");
+        render.setPrefWidth(60);
+        render.setOnMouseClicked(e -> {
+            var canvas = roomView.renderMode() == RenderMode.Nodes;
+            render.setText(canvas ? "nodes" : "canvas");
+            roomView.renderMode(canvas ? RenderMode.Canvas : RenderMode.Nodes);
         });
 
-        var res = new HBox(5, path, save, load, but);
+        var speed = new Button("1x");
+        speed.setPrefWidth(60);
+        speed.setOnMouseClicked(e -> {
+            var sched = roomView.scheduler();
+            var fast = sched.speed() == 1;
+            speed.setText(fast ? "10x" : "1x");
+            sched.speed(fast ? 10 : 1);
+        });
+
+        var stats = new Button("stats");
+        stats.setOnMouseClicked(
+            e -> roomView.setProfiling(!roomView.isProfiling())
+        );
+
+        var res = new HBox(5, path, save, load, but, render, speed, stats);
         HBox.setHgrow(path, Priority.ALWAYS);
         res.setAlignment(Pos.CENTER_RIGHT);
         res.setPadding(new Insets(5));
@@ -6,15 +6,32 @@
 
 package ija.robots;
 
+import ija.robots.batch.BatchRunner;
+import ija.robots.batch.Generator;
+import ija.robots.batch.Sweep;
+import ija.robots.common.AsyncHandler;
+
 /**
  * The class with the main entry point.
  */
 public class Main {
     /**
-     * The man entry point of the application.
+     * The man entry point of the application. Runs the simulation without
+     * the window when the first argument is {@link BatchRunner#FLAG},
+     * {@link Sweep#FLAG} or {@link Generator#FLAG}.
      * @param args Command line arguments for the application.
      */
     public static void main(String[] args) {
-        App.main(args);
+        // the simulation and the JavaFX thread never wait for the console
+        AsyncHandler.install();
+        if (BatchRunner.isBatch(args)) {
+            BatchRunner.main(args);
+        } else if (Sweep.isSweep(args)) {
+            Sweep.main(args);
+        } else if (Generator.isGenerate(args)) {
+            Generator.main(args);
+        } else {
+            App.main(args);
+        }
     }
 }
@@ -100,10 +100,10 @@ public class ReditMenu {
      */
     public void select(SimObj obj) {
         if (this.obj == obj) {
-            log.info("Selecting the same object: " + obj);
+            log.info(() -> "Selecting the same object: " + obj);
             return;
         }
-        log.info("new selection: " + obj);
+        log.info(() -> "new selection: " + obj);
 
         if (this.obj instanceof Robot r) {
             r.setOnAngleChange(null);
@@ -188,7 +188,7 @@ public class ReditMenu {
     private Button deselectBtn() {
         var deselect = new Button("deselect");
         deselect.setOnMouseClicked(e -> {
-            log.info("Deselecting: " + obj);
+            log.info(() -> "Deselecting: " + obj);
             if (obj != null) {
                 obj.setSelected(false);
             }
@@ -199,7 +199,7 @@ public class ReditMenu {
     private Button removeBtn() {
         var remove = new Button("remove");
         remove.setOnMouseClicked(e -> {
-            log.info("Removing: " + obj);
+            log.info(() -> "Removing: " + obj);
             if (onRemove != null) {
                 onRemove.accept(obj);
             }
@@ -234,15 +234,15 @@ public class ReditMenu {
             }
             switch (idx) {
                 case RobotType.DUMMY:
-                    log.info("Changing robot to Dummy: " + r);
+                    log.info(() -> "Changing robot to Dummy: " + r);
                     onChangeRobot.accept(r, new Robot(r));
                     break;
                 case RobotType.AUTO:
-                    log.info("Changing robot to Auto: " + r);
+                    log.info(() -> "Changing robot to Auto: " + r);
                     onChangeRobot.accept(r, new AutoRobot(r));
                     break;
                 case RobotType.CONTROL:
-                    log.info("Changing robot to Control: " + r);
+                    log.info(() -> "Changing robot to Control: " + r);
                     onChangeRobot.accept(r, new ControlRobot(r));
                     break;
             }
@@ -255,7 +255,9 @@ public class ReditMenu {
             0,
             Double.MAX_VALUE,
             (s, r) -> {
-                log.info("Changing robot speed to '" + s + "'': " + r);
+                log.info(() ->
+                    "Changing robot speed to '" + s + "'': " + r
+                );
                 r.speed(s);
             },
             Robot.class
@@ -267,7 +269,9 @@ public class ReditMenu {
             -360,
             360,
             (a, r) -> {
-                log.info("Changing robot angle to '" + a + "'': " + r);
+                log.info(() ->
+                    "Changing robot angle to '" + a + "'': " + r
+                );
                 r.angle(-a / 180 * Math.PI);
             },
             Robot.class
@@ -285,14 +289,14 @@ public class ReditMenu {
             0,
             Double.MAX_VALUE,
             (rs, r) -> {
-                log.info(
+                log.info(() ->
                     "Changing robot rotation speed to '" + rs + "'': " + r
                 );
-                rs = rs / 180 * Math.PI;
+                var rad = rs / 180 * Math.PI;
                 if (r instanceof ControlRobot cr) {
-                    cr.rspeed(rs);
+                    cr.rspeed(rad);
                 } else if (r instanceof AutoRobot ar) {
-                    ar.rspeed(rs);
+                    ar.rspeed(rad);
                 }
             },
             Robot.class
@@ -316,7 +320,7 @@ public class ReditMenu {
             0,
             Double.MAX_VALUE,
             (ed, r) -> {
-                log.info(
+                log.info(() ->
                     "Changing robot elide distance to '" + ed + "'': " + r
                 );
                 r.edist(ed);
@@ -330,7 +334,7 @@ public class ReditMenu {
             -360,
             360,
             (rd, r) -> {
-                log.info(
+                log.info(() ->
                     "Changing robot elide rotation to '" + rd + "'': " + r
                 );
                 r.erot(-rd / 180 * Math.PI);
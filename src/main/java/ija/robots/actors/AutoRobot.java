@@ -7,19 +7,11 @@
 package ija.robots.actors;
 
 import ija.robots.common.Vec2;
-import javafx.scene.paint.Color;
 
 /**
  * Robot with basic AI.
  */
 public class AutoRobot extends Robot {
-    private double edist;
-    private double erot;
-    private double rspeed;
-
-    private double sspeed;
-    private double rotRem = 0;
-
     /**
      * Creates new robot with basic AI.
      * @param topLeft Top left corner of the robot.
@@ -38,13 +30,11 @@ public class AutoRobot extends Robot {
         double rspeed
     ) {
         super(topLeft, speed, angle);
-        this.edist = edist;
-        this.erot = erot;
-        this.rspeed = rspeed;
-        sspeed = speed;
-
-        var shape = getShape();
-        shape.setFill(Color.web("#5555cc"));
+        store.kind[idx] = RobotStore.AUTO;
+        store.edist[idx] = edist;
+        store.erot[idx] = erot;
+        store.rspeed[idx] = rspeed;
+        store.sspeed[idx] = speed;
     }
 
     /**
@@ -62,34 +52,34 @@ public class AutoRobot extends Robot {
      */
     public AutoRobot(Robot r) {
         super(r);
-        edist = 20;
-        erot = Math.PI / Math.E;
-        rspeed = Math.PI / 4;
-        sspeed = r.speed();
-        var shape = getShape();
-        shape.setFill(Color.web("#5555cc"));
+        store.kind[idx] = RobotStore.AUTO;
+        store.edist[idx] = 20;
+        store.erot[idx] = Math.PI / Math.E;
+        store.rspeed[idx] = Math.PI / 4;
+        store.sspeed[idx] = r.speed();
 
         if (r instanceof AutoRobot ar) {
-            edist = ar.edist();
-            erot = ar.erot();
-            rspeed = ar.rspeed();
+            edist(ar.edist());
+            erot(ar.erot());
+            rspeed(ar.rspeed());
         } else if (r instanceof ControlRobot cr) {
-            rspeed = cr.rspeed();
+            rspeed(cr.rspeed());
         }
     }
 
     @Override
     public double speed() {
-        if (rotRem != 0) {
-            return sspeed;
+        if (store.rotRem[idx] != 0) {
+            return store.sspeed[idx];
         }
         return super.speed();
     }
 
     @Override
     public double speed(double speed) {
-        if (rotRem != 0) {
-            return sspeed = speed;
+        if (store.rotRem[idx] != 0) {
+            store.wake(idx);
+            return store.sspeed[idx] = speed;
         }
         return super.speed(speed);
     }
@@ -99,7 +89,7 @@ public class AutoRobot extends Robot {
      * @return The elide distance. (pixels)
      */
     public double edist() {
-        return edist;
+        return store.edist[idx];
     }
 
     /**
@@ -108,7 +98,8 @@ public class AutoRobot extends Robot {
      * @return The new elide distance.
      */
     public double edist(double edist) {
-        return this.edist = edist;
+        store.wake(idx);
+        return store.edist[idx] = edist;
     }
 
     /**
@@ -116,7 +107,7 @@ public class AutoRobot extends Robot {
      * @return Elide rotation. (radians)
      */
     public double erot() {
-        return erot;
+        return store.erot[idx];
     }
 
     /**
@@ -125,7 +116,8 @@ public class AutoRobot extends Robot {
      * @return The new elide rotation.
      */
     public double erot(double erot) {
-        return this.erot = erot;
+        store.wake(idx);
+        return store.erot[idx] = erot;
     }
 
     /**
@@ -133,7 +125,7 @@ public class AutoRobot extends Robot {
      * @return Rotation speed. (radians per second)
      */
     public double rspeed() {
-        return rspeed;
+        return store.rspeed[idx];
     }
 
     /**
@@ -142,32 +134,8 @@ public class AutoRobot extends Robot {
      * @return The new rotation speed.
      */
     public double rspeed(double rspeed) {
-        return this.rspeed = rspeed;
-    }
-
-    @Override
-    public void move(double delta, double distance) {
-        if (rotRem == 0 && distance <= edist) {
-            rotRem = erot;
-            sspeed = super.speed();
-            super.speed(0);
-        }
-
-        if (rotRem != 0) {
-            var ang = rspeed * delta;
-            ang = rotRem < 0 ? - ang : ang;
-            if (Math.abs(rotRem) < Math.abs(ang)) {
-                ang = rotRem;
-                rotRem = 0;
-                super.speed(sspeed);
-            } else {
-                rotRem -= ang;
-            }
-
-            angle(angle() + ang);
-        }
-
-        super.move(delta, distance);
+        store.wake(idx);
+        return store.rspeed[idx] = rspeed;
     }
 
     @Override
@@ -177,11 +145,11 @@ public class AutoRobot extends Robot {
             "%f, elide_distance: %f, elide_rotation: %f }",
             hitbox().x(),
             hitbox().y(),
-            sspeed,
+            store.sspeed[idx],
             -angle() / Math.PI * 180,
-            rspeed / Math.PI * 180,
-            edist,
-            erot / Math.PI * 180
+            rspeed() / Math.PI * 180,
+            edist(),
+            erot() / Math.PI * 180
         );
     }
 }
@@ -0,0 +1,35 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Flight recorder event of changing type of a robot.
+ */
+
+package ija.robots.actors;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted by
+ * {@link Room#changeRobot(Robot, Robot)}.
+ */
+@Name("ija.robots.ChangeRobot")
+@Label("Change Robot")
+@Category({ "IJA Robots", "Editing" })
+@Description("Robot in a room replaced by robot of another type.")
+class ChangeRobotEvent extends Event {
+    @Label("From")
+    @Description("Type of the replaced robot.")
+    String from;
+
+    @Label("To")
+    @Description("Type of the new robot.")
+    String to;
+
+    @Label("Robots")
+    @Description("Number of robots in the room.")
+    int robots;
+}
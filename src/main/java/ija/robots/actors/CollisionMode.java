@@ -0,0 +1,25 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Ways of resolving collisions between robots.
+ */
+
+package ija.robots.actors;
+
+/**
+ * Ways of resolving collisions between robots.
+ */
+public enum CollisionMode {
+    /**
+     * Pairs of robots are resolved one after another and each pair sees the
+     * positions moved by the previous pairs. The result depends on the order
+     * of the robots in the room.
+     */
+    Ordered,
+    /**
+     * All pushes are computed from the positions at the start of the phase
+     * and then applied at once. The result doesn't depend on the order of
+     * the robots in the room.
+     */
+    Jacobi,
+}
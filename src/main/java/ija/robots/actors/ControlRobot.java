@@ -7,15 +7,8 @@
 package ija.robots.actors;
 
 import ija.robots.common.Vec2;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
 
 public class ControlRobot extends Robot {
-    private double sspeed = 20;
-    private double rotSpeed = Math.PI / 4;
-    private double curSpeed = 0;
-    private double curRotSpeed = 0;
-
     //=======================================================================//
     //                                PUBLIC                                 //
     //=======================================================================//
@@ -26,6 +19,7 @@ public class ControlRobot extends Robot {
      */
     public ControlRobot(Vec2 topLeft) {
         super(topLeft, 20, Math.PI / 2);
+        init(20, Math.PI / 4);
     }
 
     /**
@@ -36,8 +30,7 @@ public class ControlRobot extends Robot {
      */
     public ControlRobot(Vec2 topLeft, double speed, double angle, double rot) {
         super(topLeft, speed, angle);
-        sspeed = speed;
-        rotSpeed = rot;
+        init(speed, rot);
     }
 
     /**
@@ -47,50 +40,27 @@ public class ControlRobot extends Robot {
      */
     public ControlRobot(Robot r) {
         super(r);
-        rotSpeed = Math.PI / 4;
-        sspeed = r.speed();
+        init(r.speed(), Math.PI / 4);
         if (r instanceof AutoRobot ar) {
-            rotSpeed = ar.rspeed();
+            rspeed(ar.rspeed());
         } else if (r instanceof ControlRobot cr) {
-            rotSpeed = cr.rspeed();
+            rspeed(cr.rspeed());
         }
     }
 
-    @Override
-    public void move(double delta, double distance) {
-        if (distance == 0) {
-            sspeed = super.speed();
-            super.speed(0);
-        } else {
-            super.speed(curSpeed);
-        }
-
-        if (curRotSpeed != 0) {
-            var ang = curRotSpeed * delta;
-            angle(super.angle() + ang);
-        }
-
-        super.move(delta, distance);
-    }
-
-    @Override
-    public Circle getShape() {
-        var shape = super.getShape();
-        shape.setFill(Color.web("#55cc55"));
-        return shape;
-    }
-
     @Override
     public double speed() {
-        if (curSpeed == 0)
-            return sspeed;
+        if (store.curSpeed[idx] == 0)
+            return store.sspeed[idx];
         return super.speed();
     }
 
     @Override
     public double speed(double speed) {
-        if (curSpeed == 0)
-            return sspeed = speed;
+        if (store.curSpeed[idx] == 0) {
+            store.wake(idx);
+            return store.sspeed[idx] = speed;
+        }
         return super.speed(speed);
     }
 
@@ -99,7 +69,7 @@ public class ControlRobot extends Robot {
      * @return rotation speed
      */
     public double rspeed() {
-        return rotSpeed;
+        return store.rspeed[idx];
     }
 
     /**
@@ -107,7 +77,8 @@ public class ControlRobot extends Robot {
      * @param speed new rotation speed
      */
     public void rspeed(double speed) {
-        rotSpeed = speed;
+        store.rspeed[idx] = speed;
+        store.wake(idx);
     }
 
     /**
@@ -115,7 +86,8 @@ public class ControlRobot extends Robot {
      * @param start true when should start moving, else false
      */
     public void forward(boolean start) {
-        curSpeed = start ? sspeed : 0;
+        store.curSpeed[idx] = start ? store.sspeed[idx] : 0;
+        store.wake(idx);
     }
 
     /**
@@ -123,11 +95,14 @@ public class ControlRobot extends Robot {
      * @param start true when should start moving, else false
      */
     public void left(boolean start) {
+        var rot = store.rspeed[idx];
+        var cur = store.curRotSpeed[idx];
         if (start) {
-            curRotSpeed = Math.max(curRotSpeed - rotSpeed, -rotSpeed);
+            store.curRotSpeed[idx] = Math.max(cur - rot, -rot);
         } else {
-            curRotSpeed = Math.min(curRotSpeed + rotSpeed, 0.);
+            store.curRotSpeed[idx] = Math.min(cur + rot, 0.);
         }
+        store.wake(idx);
     }
 
     /**
@@ -135,11 +110,14 @@ public class ControlRobot extends Robot {
      * @param start true when should start moving, else false
      */
     public void right(boolean start) {
+        var rot = store.rspeed[idx];
+        var cur = store.curRotSpeed[idx];
         if (start) {
-            curRotSpeed = Math.min(rotSpeed + curRotSpeed, rotSpeed);
+            store.curRotSpeed[idx] = Math.min(rot + cur, rot);
         } else {
-            curRotSpeed = Math.max(curRotSpeed - rotSpeed, 0.);
+            store.curRotSpeed[idx] = Math.max(cur - rot, 0.);
         }
+        store.wake(idx);
     }
 
     @Override
@@ -149,9 +127,19 @@ public class ControlRobot extends Robot {
             "rotation_speed: %f }",
             hitbox().x(),
             hitbox().y(),
-            sspeed,
+            store.sspeed[idx],
             -angle() / Math.PI * 180,
-            rotSpeed / Math.PI * 180
+            rspeed() / Math.PI * 180
         );
     }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void init(double sspeed, double rot) {
+        store.kind[idx] = RobotStore.CONTROL;
+        store.sspeed[idx] = sspeed;
+        store.rspeed[idx] = rot;
+    }
 }
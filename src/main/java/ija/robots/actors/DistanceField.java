@@ -0,0 +1,407 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Distance field over the obstacles in a room.
+ */
+
+package ija.robots.actors;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import ija.robots.common.Rect;
+
+/**
+ * Grid over a room where each cell knows the distance to the closest cell
+ * that is covered by an obstacle. Rays are traced over the grid by sphere
+ * tracing: the distance in the cell is a safe step that can't skip any
+ * obstacle, so the number of steps depends on the free space along the ray
+ * and not on the number of obstacles. Close to obstacles the ray steps
+ * from cell to cell and the obstacles covering the cells are intersected
+ * exactly.
+ *
+ * Distances are capped at {@link #MAX_DIST}, so when obstacles change only
+ * the cells near them have to be computed again. The distances are exact
+ * euclidean distances between the centers of the cells, computed by the
+ * separable transform of Felzenszwalb and Huttenlocher.
+ *
+ * The field is updated from single thread and traced from any number of
+ * threads while it isn't updated.
+ */
+class DistanceField {
+    /** Distances are stored only up to this value. */
+    static final double MAX_DIST = 256;
+    /** The smallest size of a cell. */
+    static final double MIN_CELL = 4;
+    /** Cells get larger in large rooms so that there are at most this many. */
+    static final int MAX_CELLS = 1 << 22;
+
+    private static final double SQRT2 = Math.sqrt(2);
+    /** Squared distance of cells with no obstacle in reach. */
+    private static final double FAR = 1e20;
+    /** How far the ray steps behind the border of a cell. */
+    private static final double EPS = 1e-6;
+
+    private Rect bounds = null;
+    private double cell = MIN_CELL;
+    private int cols = 0;
+    private int rows = 0;
+    private boolean[] occupied = new boolean[0];
+    private float[] dist = new float[0];
+
+    /** Hitboxes from which the field was computed. */
+    private IdentityHashMap<Obstacle, Rect> boxes = new IdentityHashMap<>();
+    private IntList found = new IntList();
+    private IntList stack = new IntList();
+
+    // buffers for the transform
+    private double[] grid = new double[0];
+    private double[] line = new double[0];
+    private double[] res = new double[0];
+    private double[] z = new double[0];
+    private int[] v = new int[0];
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Updates the field so that it matches the obstacles. Only the cells
+     * around the obstacles that have changed since the last update are
+     * computed again, unless the bounds have changed. Obstacles that are
+     * dragged are left out.
+     * @param obstacles Obstacles in the room.
+     * @param tree Tree built from the obstacles.
+     * @param bounds Bounds of the room.
+     */
+    void update(List<Obstacle> obstacles, ObstacleTree tree, Rect bounds) {
+        var next = new IdentityHashMap<Obstacle, Rect>(obstacles.size());
+        var dirty = new ArrayList<Rect>();
+        for (var o : obstacles) {
+            if (o.isDragging()) {
+                continue;
+            }
+            var box = o.hitbox();
+            next.put(o, box);
+            var old = boxes.remove(o);
+            if (old == null) {
+                dirty.add(box);
+            } else if (!old.equals(box)) {
+                dirty.add(old);
+                dirty.add(box);
+            }
+        }
+        dirty.addAll(boxes.values());
+        boxes = next;
+
+        if (!bounds.equals(this.bounds)) {
+            resize(bounds);
+            refresh(tree, 0, 0, cols - 1, rows - 1);
+            return;
+        }
+
+        // large changes are faster to compute at once
+        var area = 0.;
+        for (var d : dirty) {
+            area += (d.width() + 2 * MAX_DIST) * (d.height() + 2 * MAX_DIST);
+        }
+        if (area >= bounds.width() * bounds.height()) {
+            refresh(tree, 0, 0, cols - 1, rows - 1);
+            return;
+        }
+
+        for (var d : dirty) {
+            refresh(
+                tree,
+                col(d.left()),
+                row(d.top()),
+                col(d.right()),
+                row(d.bottom())
+            );
+        }
+    }
+
+    /**
+     * Finds the distance to the closest obstacle in the direction of a ray.
+     * Free cells are skipped by the distance in them and only obstacles
+     * that cover the cells on the ray close to the hit are intersected with
+     * the ray, so the result is the same as
+     * {@link ObstacleTree#rayCast}.
+     * @param px X coordinate of the start of the ray.
+     * @param py Y coordinate of the start of the ray.
+     * @param dx X component of the unit direction of the ray.
+     * @param dy Y component of the unit direction of the ray.
+     * @param max Obstacles further than this are ignored.
+     * @param tree Tree built from the same obstacles as the field.
+     * @param s Buffers for the queries to the tree.
+     * @return Distance to the closest obstacle or max if no obstacle is
+     * closer.
+     */
+    double trace(
+        double px,
+        double py,
+        double dx,
+        double dy,
+        double max,
+        ObstacleTree tree,
+        Parallel.Scratch s
+    ) {
+        if (cols == 0) {
+            return max;
+        }
+        var ox = px - bounds.left();
+        var oy = py - bounds.top();
+        var w = cols * cell;
+        var h = rows * cell;
+        var margin = cell * SQRT2;
+
+        var best = max;
+        var t = 0.;
+        while (t < best) {
+            var x = ox + dx * t;
+            var y = oy + dy * t;
+            if (x < 0 || y < 0 || x >= w || y >= h) {
+                return best;
+            }
+            var c = (int)(x / cell);
+            var r = (int)(y / cell);
+            var d = dist[r * cols + c];
+            if (d == 0) {
+                best = Math.min(best, cellHit(c, r, px, py, dx, dy, tree, s));
+            }
+
+            var step = d - margin;
+            if (step < cell) {
+                // close to obstacle, step to the next cell
+                step = Double.POSITIVE_INFINITY;
+                if (dx > 0) {
+                    step = ((c + 1) * cell - x) / dx;
+                } else if (dx < 0) {
+                    step = (c * cell - x) / dx;
+                }
+                if (dy > 0) {
+                    step = Math.min(step, ((r + 1) * cell - y) / dy);
+                } else if (dy < 0) {
+                    step = Math.min(step, (r * cell - y) / dy);
+                }
+                step += EPS;
+            }
+            t += step;
+        }
+        return best;
+    }
+
+    /**
+     * Gets the size of single cell.
+     * @return Size of a cell in pixels.
+     */
+    double cell() {
+        return cell;
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    /**
+     * Intersects the ray with the obstacles that cover the cell.
+     */
+    private double cellHit(
+        int c,
+        int r,
+        double px,
+        double py,
+        double dx,
+        double dy,
+        ObstacleTree tree,
+        Parallel.Scratch s
+    ) {
+        var l = bounds.left() + c * cell;
+        var t = bounds.top() + r * cell;
+        var cnt = tree.query(l, t, l + cell, t + cell, s.found, s.stack);
+        var res = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < cnt; ++i) {
+            var o = s.found.get(i);
+            res = Math.min(res, ObstacleTree.rectDistance(
+                px,
+                py,
+                dx,
+                dy,
+                tree.left(o),
+                tree.top(o),
+                tree.right(o),
+                tree.bottom(o)
+            ));
+        }
+        return res;
+    }
+
+    private void resize(Rect bounds) {
+        this.bounds = bounds;
+        var area = bounds.width() * bounds.height();
+        cell = Math.max(MIN_CELL, Math.sqrt(area / MAX_CELLS));
+        cols = Math.max(1, (int)Math.ceil(bounds.width() / cell));
+        rows = Math.max(1, (int)Math.ceil(bounds.height() / cell));
+        var n = cols * rows;
+        if (occupied.length < n) {
+            occupied = new boolean[n];
+            dist = new float[n];
+        }
+    }
+
+    private int col(double x) {
+        var c = (int)Math.floor((x - bounds.left()) / cell);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private int row(double y) {
+        var r = (int)Math.floor((y - bounds.top()) / cell);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+
+    /**
+     * Marks the cells in the given range that are covered by any obstacle
+     * and computes the distances of all the cells that may have changed.
+     */
+    private void refresh(ObstacleTree tree, int c0, int r0, int c1, int r1) {
+        for (int r = r0; r <= r1; ++r) {
+            for (int c = c0; c <= c1; ++c) {
+                occupied[r * cols + c] = false;
+            }
+        }
+
+        var l = bounds.left() + c0 * cell;
+        var t = bounds.top() + r0 * cell;
+        var cnt = tree.query(
+            l,
+            t,
+            bounds.left() + (c1 + 1) * cell,
+            bounds.top() + (r1 + 1) * cell,
+            found,
+            stack
+        );
+        for (int i = 0; i < cnt; ++i) {
+            var o = found.get(i);
+            var oc0 = Math.max(c0, col(tree.left(o)));
+            var or0 = Math.max(r0, row(tree.top(o)));
+            var oc1 = Math.min(c1, col(tree.right(o)));
+            var or1 = Math.min(r1, row(tree.bottom(o)));
+            for (int r = or0; r <= or1; ++r) {
+                for (int c = oc0; c <= oc1; ++c) {
+                    occupied[r * cols + c] = true;
+                }
+            }
+        }
+
+        // cells within reach of the change may get new distance and their
+        // closest obstacle may be in reach of them
+        var reach = (int)Math.ceil(MAX_DIST / cell) + 1;
+        transform(
+            Math.max(0, c0 - 2 * reach),
+            Math.max(0, r0 - 2 * reach),
+            Math.min(cols - 1, c1 + 2 * reach),
+            Math.min(rows - 1, r1 + 2 * reach),
+            Math.max(0, c0 - reach),
+            Math.max(0, r0 - reach),
+            Math.min(cols - 1, c1 + reach),
+            Math.min(rows - 1, r1 + reach)
+        );
+    }
+
+    /**
+     * Computes the distances of the cells in the write range from the
+     * obstacles in the source range.
+     */
+    private void transform(
+        int c0,
+        int r0,
+        int c1,
+        int r1,
+        int wc0,
+        int wr0,
+        int wc1,
+        int wr1
+    ) {
+        var w = c1 - c0 + 1;
+        var h = r1 - r0 + 1;
+        if (grid.length < w * h) {
+            grid = new double[w * h];
+        }
+        var len = Math.max(w, h);
+        if (line.length < len) {
+            line = new double[len];
+            res = new double[len];
+            z = new double[len + 1];
+            v = new int[len];
+        }
+
+        for (int r = 0; r < h; ++r) {
+            for (int c = 0; c < w; ++c) {
+                var occ = occupied[(r0 + r) * cols + c0 + c];
+                grid[r * w + c] = occ ? 0 : FAR;
+            }
+        }
+
+        for (int c = 0; c < w; ++c) {
+            for (int r = 0; r < h; ++r) {
+                line[r] = grid[r * w + c];
+            }
+            transform(h);
+            for (int r = 0; r < h; ++r) {
+                grid[r * w + c] = res[r];
+            }
+        }
+
+        for (int r = 0; r < h; ++r) {
+            System.arraycopy(grid, r * w, line, 0, w);
+            transform(w);
+            System.arraycopy(res, 0, grid, r * w, w);
+        }
+
+        for (int r = wr0; r <= wr1; ++r) {
+            for (int c = wc0; c <= wc1; ++c) {
+                var d = Math.sqrt(grid[(r - r0) * w + c - c0]) * cell;
+                dist[r * cols + c] = (float)Math.min(MAX_DIST, d);
+            }
+        }
+    }
+
+    /**
+     * One dimensional squared distance transform of the first n values in
+     * line. The result is stored to res. It is the lower envelope of the
+     * parabolas rooted at each of the values.
+     */
+    private void transform(int n) {
+        var k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+        for (int q = 1; q < n; ++q) {
+            var s = intersection(q, v[k]);
+            while (s <= z[k]) {
+                --k;
+                s = intersection(q, v[k]);
+            }
+            ++k;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+
+        k = 0;
+        for (int q = 0; q < n; ++q) {
+            while (z[k + 1] < q) {
+                ++k;
+            }
+            var d = q - v[k];
+            res[q] = d * d + line[v[k]];
+        }
+    }
+
+    /** Position where the parabolas rooted at q and p intersect. */
+    private double intersection(int q, int p) {
+        return ((line[q] + (double)q * q) - (line[p] + (double)p * p))
+            / (2. * q - 2. * p);
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Hands frames from the simulation thread to the drawing thread.
+ */
+
+package ija.robots.actors;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Triple buffer of {@link RoomFrame}s. The simulation writes into its own
+ * frame and swaps it with the ready frame, the drawing thread swaps its own
+ * frame with the ready frame when there is newer one. Neither of the
+ * threads waits for the other and no frames are allocated after the first
+ * few publications.
+ *
+ * Frames may be published from multiple threads, but never at the same
+ * time. {@link Room#publish(FrameBuffer)} must be called while the room
+ * isn't used by any other thread. Frames must be read from single thread.
+ */
+public class FrameBuffer {
+    private final AtomicReference<RoomFrame> ready =
+        new AtomicReference<>(new RoomFrame());
+    private RoomFrame back = new RoomFrame();
+    private RoomFrame front = new RoomFrame();
+
+    private RoomFrame last = null;
+    private volatile long seq = 0;
+    private int version = 0;
+    private long shown = 0;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Gets the most recently published frame. The frame may be read until
+     * the next call to this method.
+     * @return The latest frame.
+     */
+    public RoomFrame latest() {
+        // the ready frame may be only replaced by newer frame, so it is newer
+        // after the swap if it was newer before
+        if (ready.get().seq > front.seq) {
+            front = ready.getAndSet(front);
+            ++shown;
+        }
+        return front;
+    }
+
+    /**
+     * Gets the number of published frames.
+     * @return Number of published frames.
+     */
+    public long published() {
+        return seq;
+    }
+
+    /**
+     * Gets the number of frames that were returned by {@link #latest()}.
+     * Must be called from the thread that reads the frames.
+     * @return Number of frames that were read.
+     */
+    public long shown() {
+        return shown;
+    }
+
+    /**
+     * Gets the number of frames that were published after the frame
+     * returned by the last call to {@link #latest()}. More than 1 means
+     * that the drawing thread doesn't keep up and frames are skipped. Must
+     * be called from the thread that reads the frames.
+     * @return Number of frames waiting to be read.
+     */
+    public long pending() {
+        return Math.max(0, seq - front.seq);
+    }
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Publishes the positions of the robots in the store if they have
+     * changed since the last publication.
+     * @param store Store with the robots.
+     * @return true if new frame was published.
+     */
+    boolean publish(RobotStore store) {
+        if (last != null && version == store.version) {
+            return false;
+        }
+        version = store.version;
+
+        back.capture(store, last, ++seq, System.nanoTime());
+        last = back;
+        // the returned frame is never the last frame, so it may be
+        // overwritten while the last frame is read
+        back = ready.getAndSet(back);
+        return true;
+    }
+}
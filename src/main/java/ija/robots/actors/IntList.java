@@ -0,0 +1,77 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Growable list of primitive integers.
+ */
+
+package ija.robots.actors;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of integers that doesn't box its values. It is used as a
+ * reusable buffer by the simulation so that it doesn't allocate.
+ */
+class IntList {
+    private int[] data = new int[16];
+    private int size = 0;
+
+    /**
+     * Gets the number of items in the list.
+     * @return Number of items in the list.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets item at the given index.
+     * @param i Index of the item.
+     * @return The item.
+     */
+    int get(int i) {
+        return data[i];
+    }
+
+    /**
+     * Sets item at the given index.
+     * @param i Index of the item.
+     * @param val The new value.
+     */
+    void set(int i, int val) {
+        data[i] = val;
+    }
+
+    /**
+     * Adds item to the end of the list.
+     * @param val Item to add.
+     */
+    void add(int val) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = val;
+    }
+
+    /**
+     * Removes the last item from the list.
+     * @return The removed item.
+     */
+    int pop() {
+        return data[--size];
+    }
+
+    /**
+     * Removes all items from the list.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the items in ascending order.
+     */
+    void sort() {
+        Arrays.sort(data, 0, size);
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Ray casts against the obstacles in single leaf of the tree.
+ */
+
+package ija.robots.actors;
+
+/**
+ * Distance along a ray to the closest of the rectangles in single leaf of
+ * {@link ObstacleTree}. The implementation with SIMD instructions is built
+ * only with the {@code simd} profile, so the tree finds it at run time.
+ */
+interface LeafRays {
+    /**
+     * Finds the distance from point to the closest border of the
+     * rectangles at index off to off + leaf size in the given direction.
+     * Rectangles with NaN sides are never hit.
+     * @param px X coordinate of the point.
+     * @param py Y coordinate of the point.
+     * @param dx X component of the unit direction.
+     * @param dy Y component of the unit direction.
+     * @param l Left sides of the rectangles.
+     * @param t Top sides of the rectangles.
+     * @param r Right sides of the rectangles.
+     * @param b Bottom sides of the rectangles.
+     * @param off Index of the first rectangle.
+     * @return Distance to the closest border or infinity if the ray
+     * doesn't hit any.
+     */
+    double rectDistance(
+        double px,
+        double py,
+        double dx,
+        double dy,
+        double[] l,
+        double[] t,
+        double[] r,
+        double[] b,
+        int off
+    );
+}
@@ -0,0 +1,514 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Bounding volume hierarchy over the obstacles in a room.
+ */
+
+package ija.robots.actors;
+
+import java.util.List;
+
+/**
+ * Static bounding volume hierarchy over the hitboxes of obstacles. The tree
+ * is stored in flat arrays and it is built again from scratch when the
+ * obstacles change. Obstacles are identified by their index in the list from
+ * which the tree was built. Queries don't modify the tree so they may run
+ * from multiple threads at once.
+ */
+class ObstacleTree {
+    /**
+     * Ray casts with SIMD instructions or null if they are not available.
+     * They are built only with the {@code simd} profile and they need the
+     * incubating vector API at run time.
+     */
+    private static final LeafRays SIMD_RAYS = loadSimd();
+    /** Rays may be cast with SIMD instructions. */
+    static final boolean SIMD = SIMD_RAYS != null;
+
+    /** It is also the number of obstacles tested by {@link #SIMD_RAYS}. */
+    private static final int LEAF_SIZE = 4;
+
+    // hitboxes of the obstacles
+    private double[] left = new double[0];
+    private double[] top = new double[0];
+    private double[] right = new double[0];
+    private double[] bottom = new double[0];
+    private int[] order = new int[0];
+    private double[] key = new double[0];
+
+    // nodes of the tree, leafs have count > 0 and internal nodes have
+    // children at first and first + 1
+    private double[] nLeft = new double[0];
+    private double[] nTop = new double[0];
+    private double[] nRight = new double[0];
+    private double[] nBottom = new double[0];
+    private int[] first = new int[0];
+    private int[] count = new int[0];
+    private int nodeCnt = 0;
+
+    // hitboxes of the obstacles in the leafs, each leaf has LEAF_SIZE
+    // slots starting at slot[node] and the unused slots are NaN
+    private double[] sLeft = new double[0];
+    private double[] sTop = new double[0];
+    private double[] sRight = new double[0];
+    private double[] sBottom = new double[0];
+    private int[] slot = new int[0];
+    private int slotCnt = 0;
+    private boolean simd = false;
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Builds the tree from the obstacles. Obstacles that are dragged by the
+     * user are left out.
+     * @param obstacles Obstacles to build the tree from.
+     */
+    void build(List<Obstacle> obstacles) {
+        var n = obstacles.size();
+        if (left.length < n) {
+            var cap = Math.max(n, left.length * 2);
+            left = new double[cap];
+            top = new double[cap];
+            right = new double[cap];
+            bottom = new double[cap];
+            order = new int[cap];
+            key = new double[cap];
+            nLeft = new double[cap * 2];
+            nTop = new double[cap * 2];
+            nRight = new double[cap * 2];
+            nBottom = new double[cap * 2];
+            first = new int[cap * 2];
+            count = new int[cap * 2];
+            slot = new int[cap * 2];
+        }
+
+        var cnt = 0;
+        for (int i = 0; i < n; ++i) {
+            var o = obstacles.get(i);
+            if (o.isDragging()) {
+                continue;
+            }
+            var box = o.hitbox();
+            left[i] = box.left();
+            top[i] = box.top();
+            right[i] = box.right();
+            bottom[i] = box.bottom();
+            order[cnt++] = i;
+        }
+
+        nodeCnt = 0;
+        slotCnt = 0;
+        if (cnt == 0) {
+            return;
+        }
+        nodeCnt = 1;
+        buildNode(0, 0, cnt);
+        if (simd) {
+            pack();
+        }
+    }
+
+    /**
+     * Checks whether the rays are cast with SIMD instructions.
+     * @return true if {@link #SIMD_RAYS} is used.
+     */
+    boolean isSimd() {
+        return simd;
+    }
+
+    /**
+     * Sets whether the rays are cast with SIMD instructions. It can be
+     * enabled only if {@link #SIMD} is true.
+     * @param val true to use {@link #SIMD_RAYS}.
+     */
+    void setSimd(boolean val) {
+        val &= SIMD;
+        if (val && !simd && nodeCnt != 0) {
+            pack();
+        }
+        simd = val;
+    }
+
+    /**
+     * Finds the distance to the closest obstacle in the direction of a ray.
+     * @param px X coordinate of the start of the ray.
+     * @param py Y coordinate of the start of the ray.
+     * @param dx X component of the unit direction of the ray.
+     * @param dy Y component of the unit direction of the ray.
+     * @param max Obstacles further than this are ignored.
+     * @param stack Buffer used for the traversal of the tree.
+     * @return Distance to the closest obstacle or max if no obstacle is
+     * closer.
+     */
+    double rayCast(
+        double px,
+        double py,
+        double dx,
+        double dy,
+        double max,
+        IntList stack
+    ) {
+        if (nodeCnt == 0) {
+            return max;
+        }
+
+        var best = max;
+        stack.clear();
+        stack.add(0);
+        while (stack.size() != 0) {
+            var node = stack.pop();
+            if (enterDistance(node, px, py, dx, dy) >= best) {
+                continue;
+            }
+
+            if (count[node] != 0 && simd) {
+                best = Math.min(best, SIMD_RAYS.rectDistance(
+                    px, py, dx, dy, sLeft, sTop, sRight, sBottom, slot[node]
+                ));
+                continue;
+            }
+            if (count[node] != 0) {
+                var end = first[node] + count[node];
+                for (int i = first[node]; i < end; ++i) {
+                    var o = order[i];
+                    best = Math.min(best, rectDistance(
+                        px, py, dx, dy, left[o], top[o], right[o], bottom[o]
+                    ));
+                }
+                continue;
+            }
+
+            // visit the closer child first
+            var a = first[node];
+            var b = a + 1;
+            if (enterDistance(a, px, py, dx, dy)
+                < enterDistance(b, px, py, dx, dy)
+            ) {
+                stack.add(b);
+                stack.add(a);
+            } else {
+                stack.add(a);
+                stack.add(b);
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Finds all obstacles whose hitbox overlaps the given rectangle. The
+     * results are sorted by the index of the obstacle.
+     * @param l Left side of the rectangle.
+     * @param t Top side of the rectangle.
+     * @param r Right side of the rectangle.
+     * @param b Bottom side of the rectangle.
+     * @param res List where the found obstacles are stored. It is cleared
+     * first.
+     * @param stack Buffer used for the traversal of the tree.
+     * @return Number of found obstacles.
+     */
+    int query(
+        double l,
+        double t,
+        double r,
+        double b,
+        IntList res,
+        IntList stack
+    ) {
+        res.clear();
+        if (nodeCnt == 0) {
+            return 0;
+        }
+
+        stack.clear();
+        stack.add(0);
+        while (stack.size() != 0) {
+            var node = stack.pop();
+            if (nLeft[node] > r || nRight[node] < l
+                || nTop[node] > b || nBottom[node] < t
+            ) {
+                continue;
+            }
+
+            if (count[node] == 0) {
+                stack.add(first[node]);
+                stack.add(first[node] + 1);
+                continue;
+            }
+
+            var end = first[node] + count[node];
+            for (int i = first[node]; i < end; ++i) {
+                var o = order[i];
+                if (left[o] <= r && right[o] >= l
+                    && top[o] <= b && bottom[o] >= t
+                ) {
+                    res.add(o);
+                }
+            }
+        }
+
+        res.sort();
+        return res.size();
+    }
+
+    /**
+     * Gets the left side of the hitbox of obstacle.
+     * @param o Index of the obstacle.
+     * @return Left side of the hitbox.
+     */
+    double left(int o) {
+        return left[o];
+    }
+
+    /**
+     * Gets the top side of the hitbox of obstacle.
+     * @param o Index of the obstacle.
+     * @return Top side of the hitbox.
+     */
+    double top(int o) {
+        return top[o];
+    }
+
+    /**
+     * Gets the right side of the hitbox of obstacle.
+     * @param o Index of the obstacle.
+     * @return Right side of the hitbox.
+     */
+    double right(int o) {
+        return right[o];
+    }
+
+    /**
+     * Gets the bottom side of the hitbox of obstacle.
+     * @param o Index of the obstacle.
+     * @return Bottom side of the hitbox.
+     */
+    double bottom(int o) {
+        return bottom[o];
+    }
+
+    /**
+     * Calculates the distance from point to the border of rectangle in the
+     * given direction.
+     * @param px X coordinate of the point.
+     * @param py Y coordinate of the point.
+     * @param dx X component of the unit direction.
+     * @param dy Y component of the unit direction.
+     * @param l Left side of the rectangle.
+     * @param t Top side of the rectangle.
+     * @param r Right side of the rectangle.
+     * @param b Bottom side of the rectangle.
+     * @return Distance to the border or infinity if the ray doesn't hit the
+     * border.
+     */
+    static double rectDistance(
+        double px,
+        double py,
+        double dx,
+        double dy,
+        double l,
+        double t,
+        double r,
+        double b
+    ) {
+        var res = Double.POSITIVE_INFINITY;
+        if (dy != 0) {
+            res = Math.min(res, edgeDistance(px, py, dx, dy, t, l, r));
+            res = Math.min(res, edgeDistance(px, py, dx, dy, b, l, r));
+        }
+        if (dx != 0) {
+            res = Math.min(res, edgeDistance(py, px, dy, dx, l, t, b));
+            res = Math.min(res, edgeDistance(py, px, dy, dx, r, t, b));
+        }
+        return res;
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    /**
+     * Creates the SIMD ray caster if it was built and the vector API is
+     * present at run time.
+     */
+    private static LeafRays loadSimd() {
+        var present = ModuleLayer.boot()
+            .findModule("jdk.incubator.vector")
+            .isPresent();
+        if (!present) {
+            return null;
+        }
+        try {
+            return (LeafRays)Class
+                .forName("ija.robots.actors.SimdRays")
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not built with the simd profile or not supported by the CPU
+            return null;
+        }
+    }
+
+    private void buildNode(int node, int start, int end) {
+        var l = Double.POSITIVE_INFINITY;
+        var t = Double.POSITIVE_INFINITY;
+        var r = Double.NEGATIVE_INFINITY;
+        var b = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; ++i) {
+            var o = order[i];
+            l = Math.min(l, left[o]);
+            t = Math.min(t, top[o]);
+            r = Math.max(r, right[o]);
+            b = Math.max(b, bottom[o]);
+        }
+        nLeft[node] = l;
+        nTop[node] = t;
+        nRight[node] = r;
+        nBottom[node] = b;
+
+        if (end - start <= LEAF_SIZE) {
+            first[node] = start;
+            count[node] = end - start;
+            slot[node] = slotCnt;
+            slotCnt += LEAF_SIZE;
+            return;
+        }
+
+        // split by the median along the longer side
+        var horizontal = r - l >= b - t;
+        for (int i = start; i < end; ++i) {
+            var o = order[i];
+            key[o] = horizontal ? left[o] + right[o] : top[o] + bottom[o];
+        }
+        var mid = (start + end) / 2;
+        select(start, end - 1, mid);
+
+        var child = nodeCnt;
+        nodeCnt += 2;
+        first[node] = child;
+        count[node] = 0;
+        buildNode(child, start, mid);
+        buildNode(child + 1, mid, end);
+    }
+
+    /**
+     * Copies the hitboxes to the slots of the leafs.
+     */
+    private void pack() {
+        if (sLeft.length < slotCnt) {
+            var cap = Math.max(slotCnt, sLeft.length * 2);
+            sLeft = new double[cap];
+            sTop = new double[cap];
+            sRight = new double[cap];
+            sBottom = new double[cap];
+        }
+        for (int node = 0; node < nodeCnt; ++node) {
+            if (count[node] == 0) {
+                continue;
+            }
+            for (int i = 0; i < LEAF_SIZE; ++i) {
+                var s = slot[node] + i;
+                if (i < count[node]) {
+                    var o = order[first[node] + i];
+                    sLeft[s] = left[o];
+                    sTop[s] = top[o];
+                    sRight[s] = right[o];
+                    sBottom[s] = bottom[o];
+                } else {
+                    sLeft[s] = sTop[s] = sRight[s] = sBottom[s] = Double.NaN;
+                }
+            }
+        }
+    }
+
+    /**
+     * Partially sorts order[lo..hi] so that the item at k is in its sorted
+     * position.
+     */
+    private void select(int lo, int hi, int k) {
+        while (lo < hi) {
+            var pivot = key[order[(lo + hi) >>> 1]];
+            var i = lo;
+            var j = hi;
+            while (i <= j) {
+                while (key[order[i]] < pivot) {
+                    ++i;
+                }
+                while (key[order[j]] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    var tmp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Distance at which the ray enters the bounding box of the node. It is 0
+     * if the ray starts inside and infinity if the ray misses.
+     */
+    private double enterDistance(
+        int node,
+        double px,
+        double py,
+        double dx,
+        double dy
+    ) {
+        var tmin = 0.;
+        var tmax = Double.POSITIVE_INFINITY;
+
+        if (dx != 0) {
+            var t1 = (nLeft[node] - px) / dx;
+            var t2 = (nRight[node] - px) / dx;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        } else if (px < nLeft[node] || px > nRight[node]) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        if (dy != 0) {
+            var t1 = (nTop[node] - py) / dy;
+            var t2 = (nBottom[node] - py) / dy;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        } else if (py < nTop[node] || py > nBottom[node]) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return tmin <= tmax ? tmin : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Distance along the ray to the segment that lies at pos on the second
+     * axis and spans from start to end on the first axis. Only hits strictly
+     * inside the segment count.
+     */
+    private static double edgeDistance(
+        double p1,
+        double p2,
+        double d1,
+        double d2,
+        double pos,
+        double start,
+        double end
+    ) {
+        var t = (pos - p2) / d2;
+        if (t < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        var hit = p1 + d1 * t;
+        return hit > start && hit < end ? t : Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Runs phases of the simulation in chunks on a fork join pool.
+ */
+
+package ija.robots.actors;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits work into chunks of fixed size and runs them either sequentially
+ * or on a fork join pool. The chunks don't depend on the number of threads,
+ * so the results are the same for any pool as long as the chunks are
+ * independent of each other.
+ */
+class Parallel {
+    /**
+     * Work on single chunk.
+     */
+    @FunctionalInterface
+    interface Task {
+        /**
+         * Processes the items in the range.
+         * @param start First item in the chunk.
+         * @param end Item after the last item in the chunk.
+         * @param chunk Index of the chunk.
+         * @param scratch Buffers owned by the chunk.
+         */
+        void run(int start, int end, int chunk, Scratch scratch);
+    }
+
+    /**
+     * Reusable buffers owned by single chunk.
+     */
+    static class Scratch {
+        /** Results of queries. */
+        final IntList found = new IntList();
+        /** Stack for tree traversal. */
+        final IntList stack = new IntList();
+        /** Pairs of items collected by the chunk. */
+        final IntList pairs = new IntList();
+        /** Number of collisions or rays counted by the chunk. */
+        int hits = 0;
+    }
+
+    private ForkJoinPool pool;
+    private Scratch[] scratch = new Scratch[0];
+
+    /**
+     * Creates new parallel runner.
+     * @param pool Pool to run on, if null everything runs sequentially.
+     */
+    Parallel(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the pool that the chunks run on.
+     * @return The pool or null if the chunks run sequentially.
+     */
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool that the chunks run on.
+     * @param pool The pool or null if the chunks should run sequentially.
+     * @return The new pool.
+     */
+    ForkJoinPool pool(ForkJoinPool pool) {
+        return this.pool = pool;
+    }
+
+    /**
+     * Gets the buffers of the given chunk.
+     * @param chunk Index of the chunk.
+     * @return Buffers of the chunk.
+     */
+    Scratch scratch(int chunk) {
+        return scratch[chunk];
+    }
+
+    /**
+     * Sums the collisions or rays counted by the chunks and clears them.
+     * @param chunks Number of the chunks.
+     * @return Total count of the chunks.
+     */
+    long hits(int chunks) {
+        var res = 0L;
+        for (int c = 0; c < chunks; ++c) {
+            res += scratch[c].hits;
+            scratch[c].hits = 0;
+        }
+        return res;
+    }
+
+    /**
+     * Processes items in chunks and waits until all chunks are done.
+     * @param count Number of items.
+     * @param size Number of items in single chunk.
+     * @param task Work done on each chunk.
+     */
+    void run(int count, int size, Task task) {
+        var chunks = (count + size - 1) / size;
+        if (scratch.length < chunks) {
+            var old = scratch.length;
+            scratch = Arrays.copyOf(scratch, Math.max(chunks, old * 2));
+            for (int i = old; i < scratch.length; ++i) {
+                scratch[i] = new Scratch();
+            }
+        }
+
+        if (pool == null || chunks < 2) {
+            for (int c = 0; c < chunks; ++c) {
+                runChunk(count, size, task, c);
+            }
+            return;
+        }
+
+        pool.invoke(new Action(count, size, task, 0, chunks));
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void runChunk(int count, int size, Task task, int c) {
+        var start = c * size;
+        task.run(start, Math.min(count, start + size), c, scratch[c]);
+    }
+
+    /**
+     * Splits the chunks in half until there is single chunk.
+     */
+    private class Action extends RecursiveAction {
+        private final int count;
+        private final int size;
+        private final Task task;
+        private final int from;
+        private final int to;
+
+        Action(int count, int size, Task task, int from, int to) {
+            this.count = count;
+            this.size = size;
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runChunk(count, size, task, from);
+                return;
+            }
+            var mid = (from + to) >>> 1;
+            invokeAll(
+                new Action(count, size, task, from, mid),
+                new Action(count, size, task, mid, to)
+            );
+        }
+    }
+}
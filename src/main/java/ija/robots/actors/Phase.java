@@ -0,0 +1,23 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Phases of single tick of the simulation.
+ */
+
+package ija.robots.actors;
+
+/**
+ * Phases of single tick of the simulation in the order in which they run.
+ */
+public enum Phase {
+    /** Robots measure the distance to the nearest obstacle in front. */
+    Sense,
+    /** Robots move and turn. */
+    Move,
+    /** Robots are pushed out of obstacles. */
+    Obstacles,
+    /** Colliding robots are pushed apart. */
+    Robots,
+    /** Robots are kept inside the room. */
+    Border,
+}
@@ -11,30 +11,26 @@ import java.util.function.Consumer;
 
 import ija.robots.common.Rect;
 import ija.robots.common.Vec2;
-import javafx.scene.Cursor;
-import javafx.scene.input.MouseButton;
-import javafx.scene.input.MouseEvent;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
 
 /**
  * Represents robot that can move. It is the base class for all other robots.
+ * The state of the robot is kept in a {@link RobotStore} and the robot is
+ * only view of single index in the store.
  */
 public class Robot extends SimObj {
-    private static final double RADIUS = 25;
-    private static final double BORDER_THICKNESS = 6;
+    /** Radius of the body of the robot. */
+    public static final double RADIUS = 25;
+    /** Thickness of the border drawn around the robot. */
+    public static final double BORDER_THICKNESS = 6;
     private static final double ADJ = BORDER_THICKNESS / 2;
+    /** Half of the size of the hitbox of the robot. */
+    static final double HALF = RADIUS + ADJ;
 
-    private Circle shape;
-    private Circle eye;
-    private Vec2 lastPos = new Vec2(0, 0);
-    private boolean isDragging = false;
+    RobotStore store;
+    int idx;
 
     private Consumer<Double> onAngleChange;
 
-    private double speed;
-    private double angle;
-
     //=======================================================================//
     //                                PUBLIC                                 //
     //=======================================================================//
@@ -47,29 +43,12 @@ public class Robot extends SimObj {
      * @param angle The direction that the robot is facing. (radians)
      */
     public Robot(Vec2 topLeft, double speed, double angle) {
-        shape = new Circle(topLeft.x() + RADIUS, topLeft.y() + RADIUS, RADIUS);
-        shape.setFill(Color.web("#cc55cc"));
-        shape.setStroke(Color.WHITE);
-        shape.setStrokeWidth(BORDER_THICKNESS);
-        shape.setOnMousePressed(e -> mousePress(e, shape));
-        shape.setOnMouseDragged(e -> mouseDrag(e));
-        shape.setOnMouseReleased(e -> mouseRelease(e, shape));
-        shape.setOnMouseEntered(e -> mouseCurIfNotDrag(shape, Cursor.OPEN_HAND));
-        shape.setOnMouseExited(e -> mouseCurIfNotDrag(shape, Cursor.NONE));
-        shape.setOnMouseMoved(e -> mouseCurIfNotDrag(shape, Cursor.OPEN_HAND));
-
-        eye = new Circle(3);
-        eye.setFill(Color.WHITE);
-        eye.setStrokeWidth(0);
-        eye.setOnMousePressed(e -> mousePress(e, eye));
-        eye.setOnMouseDragged(e -> mouseDrag(e));
-        eye.setOnMouseReleased(e -> mouseRelease(e, eye));
-        eye.setOnMouseEntered(e -> mouseCurIfNotDrag(eye, Cursor.OPEN_HAND));
-        eye.setOnMouseExited(e -> mouseCurIfNotDrag(eye, Cursor.NONE));
-        eye.setOnMouseMoved(e -> mouseCurIfNotDrag(eye, Cursor.OPEN_HAND));
-
-        this.speed = speed;
-        angle(angle);
+        store = new RobotStore(1);
+        idx = store.add(this);
+        store.x[idx] = topLeft.x() + RADIUS;
+        store.y[idx] = topLeft.y() + RADIUS;
+        store.speed[idx] = speed;
+        store.angle[idx] = angle;
     }
 
     /**
@@ -99,7 +78,10 @@ public class Robot extends SimObj {
      * @return The value passed in.
      */
     public Rect hitbox(Rect rect) {
-        moveTo(rect.topLeft().add(ADJ, ADJ));
+        store.x[idx] = rect.x() + HALF;
+        store.y[idx] = rect.y() + HALF;
+        ++store.version;
+        store.wake(idx);
         return rect;
     }
 
@@ -108,7 +90,7 @@ public class Robot extends SimObj {
      * @return Speed of the robot. (pixels per second)
      */
     public double speed() {
-        return speed;
+        return store.speed[idx];
     }
 
     /**
@@ -117,7 +99,8 @@ public class Robot extends SimObj {
      * @return The new speed.
      */
     public double speed(double speed) {
-        return this.speed = speed;
+        store.wake(idx);
+        return store.speed[idx] = speed;
     }
 
     /**
@@ -125,7 +108,7 @@ public class Robot extends SimObj {
      * @return Center of the robot.
      */
     public Vec2 center() {
-        return new Vec2(shape.getCenterX(), shape.getCenterY());
+        return new Vec2(store.x[idx], store.y[idx]);
     }
 
     /**
@@ -133,13 +116,11 @@ public class Robot extends SimObj {
      * @param angle The new direction. (radians)
      */
     public void angle(double angle) {
-        var ch = this.angle != angle;
-        this.angle = angle;
-        var c = center().add(vecAngle().mul(RADIUS * 2 / 3.));
-        eye.setCenterX(c.x());
-        eye.setCenterY(c.y());
-        if (ch && onAngleChange != null) {
-            onAngleChange.accept(angle);
+        var ch = store.angle[idx] != angle;
+        store.angle[idx] = angle;
+        store.wake(idx);
+        if (ch) {
+            angleChanged();
         }
     }
 
@@ -148,23 +129,7 @@ public class Robot extends SimObj {
      * @return Direction that the robot is facing.
      */
     public double angle() {
-        return angle;
-    }
-
-    /**
-     * Gets the shape of the robot that can be drawn.
-     * @return Shape of the robot that can be drawn.
-     */
-    public Circle getShape() {
-        return shape;
-    }
-
-    /**
-     * Gets the shape of the eye of the robot that can be drawn.
-     * @return Shape of the eye of the robot that can be drawn.
-     */
-    public Circle getEye() {
-        return eye;
+        return store.angle[idx];
     }
 
     /**
@@ -172,7 +137,7 @@ public class Robot extends SimObj {
      * @return Position of the top left corner of the robot hitbox.
      */
     public Vec2 pos() {
-        return apos().sub(ADJ, ADJ);
+        return new Vec2(store.x[idx] - HALF, store.y[idx] - HALF);
     }
 
     /**
@@ -180,7 +145,7 @@ public class Robot extends SimObj {
      * @return Orientation of the robot as a unit vector.
      */
     public Vec2 vecAngle() {
-        return Vec2.unit(angle);
+        return Vec2.unit(angle());
     }
 
     /**
@@ -188,15 +153,17 @@ public class Robot extends SimObj {
      * @return The move vector of the robot that contains the angle and speed.
      */
     public Vec2 step() {
-        return Vec2.polar(speed, angle);
+        return Vec2.polar(store.speed[idx], angle());
     }
 
     /**
      * Move the robot.
      * @param delta Time ellapsed in seconds.
+     * @param distance Free distance in front of the robot.
      */
     public void move(double delta, double distance) {
-        moveBy(step().mul(delta));
+        store.move(idx, delta, distance);
+        store.fireAngleChange(idx);
     }
 
     /**
@@ -204,22 +171,24 @@ public class Robot extends SimObj {
      * @return true if robot is dragged, otherwise false
      */
     public boolean isDragging() {
-        return isDragging;
+        return store.dragging[idx];
     }
 
-    @Override
-    public void setSelected(boolean val) {
-        if (val) {
-            shape.setStroke(Color.web("#ffff55"));
-        } else {
-            shape.setStroke(Color.WHITE);
-        }
-        super.setSelected(val);
+    /**
+     * Sets whether the robot is dragged by the user. Dragged robots are not
+     * simulated.
+     * @param val true if the robot is dragged, otherwise false.
+     */
+    public void setDragging(boolean val) {
+        store.dragging[idx] = val;
+        store.wake(idx);
     }
 
     /**
      * Sets the event handler for the event onAngleChange which triggers when
-     * the angle of the robot changes.
+     * the angle of the robot changes. When the robot turns in
+     * {@link Room#tick(double)}, possibly on another thread, the handler is
+     * called later from {@link Room#fireAngleChanges()}.
      * @param val The event handler.
      */
     public void setOnAngleChange(Consumer<Double> val) {
@@ -232,60 +201,70 @@ public class Robot extends SimObj {
             "robot: [%f, %f] { speed: %f, angle: %f }",
             hitbox().x(),
             hitbox().y(),
-            speed,
+            speed(),
             -angle() / Math.PI * 180
         );
     }
 
     //=======================================================================//
-    //                               PRIVATE                                 //
+    //                               PACKAGE                                 //
     //=======================================================================//
 
-    private void moveBy(Vec2 vec) {
-        moveTo(apos().add(vec));
-    }
-
-    private void moveTo(Vec2 pos) {
-        shape.setCenterX(pos.x() + RADIUS);
-        shape.setCenterY(pos.y() + RADIUS);
-        angle(angle);
+    /**
+     * Moves the state of the robot to the given store.
+     * @param dst Store to move to.
+     */
+    void attach(RobotStore dst) {
+        var old = store;
+        var oldIdx = idx;
+        var i = dst.add(this);
+        old.copy(oldIdx, dst, i);
+        store = dst;
+        idx = i;
+        old.remove(oldIdx);
     }
 
-    private Vec2 apos() {
-        return new Vec2(
-            shape.getCenterX() - RADIUS,
-            shape.getCenterY() - RADIUS
-        );
+    /**
+     * Moves the state of the robot to its own store.
+     */
+    void detach() {
+        attach(new RobotStore(1));
     }
 
-    private void mousePress(MouseEvent event, Circle source) {
-        shape.toFront();
-        eye.toFront();
-        setSelected(true);
-        if (event.getButton() == MouseButton.PRIMARY) {
-            isDragging = true;
-            source.setCursor(Cursor.CLOSED_HAND);
-            lastPos = new Vec2(event.getX(), event.getY());
-        }
+    /**
+     * Copies the state of the robot to its own store without removing it
+     * from the current store. Used when the whole store is cleared.
+     */
+    void release() {
+        var own = new RobotStore(1);
+        var i = own.add(this);
+        store.copy(idx, own, i);
+        store = own;
+        idx = i;
     }
 
-    private void mouseRelease(MouseEvent event, Circle source) {
-        source.setCursor(Cursor.OPEN_HAND);
-        isDragging = false;
+    /**
+     * Called by the store when the index of the robot changes.
+     * @param i The new index.
+     */
+    void reindex(int i) {
+        idx = i;
     }
 
-    private void mouseDrag(MouseEvent event) {
-        if (isDragging) {
-            var newPos = new Vec2(event.getX(), event.getY());
-            var delta = newPos.sub(lastPos);
-            moveBy(delta);
-            lastPos = newPos;
+    /**
+     * Triggers the onAngleChange event.
+     */
+    void angleChanged() {
+        if (onAngleChange != null) {
+            onAngleChange.accept(store.angle[idx]);
         }
     }
 
-    private void mouseCurIfNotDrag(Circle source, Cursor cur) {
-        if (!isDragging()) {
-            source.setCursor(cur);
-        }
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private Vec2 apos() {
+        return new Vec2(store.x[idx] - RADIUS, store.y[idx] - RADIUS);
     }
 }
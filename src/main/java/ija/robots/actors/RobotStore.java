@@ -0,0 +1,412 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Storage of the state of robots in primitive arrays.
+ */
+
+package ija.robots.actors;
+
+import java.util.Arrays;
+
+/**
+ * State of robots stored as structure of arrays. Each robot occupies one
+ * index in all the columns and robot objects are only views of the index.
+ * Robots that are not in any room have their own store with single robot.
+ */
+class RobotStore {
+    /** Kind of simple robot. */
+    static final byte DUMMY = 0;
+    /** Kind of robot with basic AI. */
+    static final byte AUTO = 1;
+    /** Kind of robot controlled by the user. */
+    static final byte CONTROL = 2;
+
+    // state common to all robots
+    byte[] kind;
+    /** X coordinate of the center. */
+    double[] x;
+    /** Y coordinate of the center. */
+    double[] y;
+    double[] angle;
+    double[] speed;
+    boolean[] dragging;
+    /** Last distance to obstacle measured by the sensor. */
+    double[] dist;
+    /** The angle has changed and the owner wasn't notified yet. */
+    boolean[] turned;
+
+    // cache of the sensor
+    /** Length of the last cast ray, NaN if the ray must be cast again. */
+    double[] ray;
+    /** X coordinate of the start of the last cast ray. */
+    double[] rayX;
+    /** Y coordinate of the start of the last cast ray. */
+    double[] rayY;
+    /** Angle of the last cast ray. */
+    double[] rayAngle;
+
+    // sleeping of robots that don't move
+    /** The robot is not simulated until something wakes it. */
+    boolean[] sleeping;
+    /** Number of ticks for which the robot stayed at its rest position. */
+    int[] idle;
+    /** The robot was pushed by a collision in this tick. */
+    boolean[] pushed;
+    /** X coordinate of the position where the robot last stopped. */
+    double[] restX;
+    /** Y coordinate of the position where the robot last stopped. */
+    double[] restY;
+    /** Angle in which the robot last stopped. */
+    double[] restAngle;
+
+    // state common to auto and control robots
+    /** Saved speed of the robot while it is not moving. */
+    double[] sspeed;
+    /** Rotation speed. */
+    double[] rspeed;
+
+    // state of auto robots
+    double[] edist;
+    double[] erot;
+    /** Remaining rotation to elide obstacle. */
+    double[] rotRem;
+
+    // state of control robots
+    double[] curSpeed;
+    double[] curRotSpeed;
+
+    /**
+     * Incremented whenever robots are added, removed or moved outside of
+     * the simulation.
+     */
+    int version = 0;
+
+    private Robot[] owners;
+    private int size = 0;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new empty store.
+     * @param capacity Initial capacity of the store.
+     */
+    RobotStore(int capacity) {
+        alloc(Math.max(capacity, 1));
+    }
+
+    /**
+     * Gets the number of robots in the store.
+     * @return Number of robots in the store.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the robot that is view of the given index.
+     * @param i Index of the robot.
+     * @return Robot at the index.
+     */
+    Robot owner(int i) {
+        return owners[i];
+    }
+
+    /**
+     * Adds new robot with all values set to zero.
+     * @param owner Robot that will be view of the new index.
+     * @return Index of the new robot.
+     */
+    int add(Robot owner) {
+        if (size == x.length) {
+            alloc(size * 2);
+        }
+        var i = size++;
+        ++version;
+        owners[i] = owner;
+        kind[i] = DUMMY;
+        x[i] = y[i] = angle[i] = speed[i] = dist[i] = 0;
+        sspeed[i] = rspeed[i] = edist[i] = erot[i] = rotRem[i] = 0;
+        curSpeed[i] = curRotSpeed[i] = 0;
+        dragging[i] = turned[i] = false;
+        ray[i] = Double.NaN;
+        rayX[i] = rayY[i] = rayAngle[i] = 0;
+        sleeping[i] = pushed[i] = false;
+        idle[i] = 0;
+        return i;
+    }
+
+    /**
+     * Copies the state of single robot.
+     * @param from Index of the robot in this store.
+     * @param dst Store to copy to.
+     * @param to Index of the robot in the destination store.
+     */
+    void copy(int from, RobotStore dst, int to) {
+        dst.kind[to] = kind[from];
+        dst.x[to] = x[from];
+        dst.y[to] = y[from];
+        dst.angle[to] = angle[from];
+        dst.speed[to] = speed[from];
+        dst.dragging[to] = dragging[from];
+        dst.dist[to] = dist[from];
+        dst.turned[to] = turned[from];
+        dst.ray[to] = Double.NaN;
+        dst.sleeping[to] = false;
+        dst.idle[to] = 0;
+        dst.sspeed[to] = sspeed[from];
+        dst.rspeed[to] = rspeed[from];
+        dst.edist[to] = edist[from];
+        dst.erot[to] = erot[from];
+        dst.rotRem[to] = rotRem[from];
+        dst.curSpeed[to] = curSpeed[from];
+        dst.curRotSpeed[to] = curRotSpeed[from];
+    }
+
+    /**
+     * Removes robot from the store. Robots after it are moved one index
+     * down so the order of the robots is preserved.
+     * @param i Index of the robot to remove.
+     */
+    void remove(int i) {
+        ++version;
+        var n = size - i - 1;
+        System.arraycopy(kind, i + 1, kind, i, n);
+        System.arraycopy(x, i + 1, x, i, n);
+        System.arraycopy(y, i + 1, y, i, n);
+        System.arraycopy(angle, i + 1, angle, i, n);
+        System.arraycopy(speed, i + 1, speed, i, n);
+        System.arraycopy(dragging, i + 1, dragging, i, n);
+        System.arraycopy(dist, i + 1, dist, i, n);
+        System.arraycopy(turned, i + 1, turned, i, n);
+        System.arraycopy(ray, i + 1, ray, i, n);
+        System.arraycopy(rayX, i + 1, rayX, i, n);
+        System.arraycopy(rayY, i + 1, rayY, i, n);
+        System.arraycopy(rayAngle, i + 1, rayAngle, i, n);
+        System.arraycopy(sleeping, i + 1, sleeping, i, n);
+        System.arraycopy(idle, i + 1, idle, i, n);
+        System.arraycopy(pushed, i + 1, pushed, i, n);
+        System.arraycopy(restX, i + 1, restX, i, n);
+        System.arraycopy(restY, i + 1, restY, i, n);
+        System.arraycopy(restAngle, i + 1, restAngle, i, n);
+        System.arraycopy(sspeed, i + 1, sspeed, i, n);
+        System.arraycopy(rspeed, i + 1, rspeed, i, n);
+        System.arraycopy(edist, i + 1, edist, i, n);
+        System.arraycopy(erot, i + 1, erot, i, n);
+        System.arraycopy(rotRem, i + 1, rotRem, i, n);
+        System.arraycopy(curSpeed, i + 1, curSpeed, i, n);
+        System.arraycopy(curRotSpeed, i + 1, curRotSpeed, i, n);
+        System.arraycopy(owners, i + 1, owners, i, n);
+        owners[--size] = null;
+        for (int j = i; j < size; ++j) {
+            owners[j].reindex(j);
+        }
+    }
+
+    /**
+     * Removes all robots from the store.
+     */
+    void clear() {
+        Arrays.fill(owners, 0, size, null);
+        size = 0;
+        ++version;
+    }
+
+    /**
+     * Forgets the rays cast by the sensors of all the robots, so that they
+     * are cast again on the next tick.
+     */
+    void forgetRays() {
+        Arrays.fill(ray, 0, size, Double.NaN);
+    }
+
+    /**
+     * Wakes the robot so that it is simulated again. It is called whenever
+     * anything that may make the robot move changes.
+     * @param i Index of the robot.
+     */
+    void wake(int i) {
+        sleeping[i] = false;
+        idle[i] = 0;
+    }
+
+    /**
+     * Wakes all the robots.
+     */
+    void wakeAll() {
+        Arrays.fill(sleeping, 0, size, false);
+        Arrays.fill(idle, 0, size, 0);
+    }
+
+    /**
+     * Counts the ticks for which the robot stood at the same position and
+     * angle without being pushed and puts it to sleep after the given
+     * number of them. Only robots with no speed may sleep, so that the
+     * ticks of sleeping robot would do nothing. Sleeping robot is woken
+     * when it was moved by something else.
+     * @param i Index of the robot.
+     * @param ticks Number of ticks after which the robot falls asleep.
+     */
+    void rest(int i, int ticks) {
+        var still = speed[i] == 0
+            && !pushed[i]
+            && x[i] == restX[i]
+            && y[i] == restY[i]
+            && angle[i] == restAngle[i];
+        pushed[i] = false;
+        if (still) {
+            if (!sleeping[i] && ++idle[i] >= ticks) {
+                sleeping[i] = true;
+            }
+            return;
+        }
+        restX[i] = x[i];
+        restY[i] = y[i];
+        restAngle[i] = angle[i];
+        wake(i);
+    }
+
+    /**
+     * Gets the shortest distance that the sensor of the robot must measure
+     * so that the robot doesn't react to it.
+     * @param i Index of the robot.
+     * @return Distance above which the exact value doesn't matter.
+     */
+    double sensorLimit(int i) {
+        switch (kind[i]) {
+            case AUTO:
+                return edist[i];
+            case CONTROL:
+                return 0;
+            default:
+                return Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Moves single robot according to its kind. Robots may be moved from
+     * multiple threads at once, the owners are notified about the change of
+     * angle later by {@link #fireAngleChange(int)}.
+     * @param i Index of the robot.
+     * @param delta Time ellapsed in seconds.
+     * @param distance Free distance in front of the robot.
+     */
+    void move(int i, double delta, double distance) {
+        switch (kind[i]) {
+            case AUTO:
+                autoMove(i, delta, distance);
+                break;
+            case CONTROL:
+                controlMove(i, delta, distance);
+                break;
+            default:
+                break;
+        }
+
+        var s = speed[i];
+        var a = angle[i];
+        x[i] += Math.cos(a) * s * delta;
+        y[i] += Math.sin(a) * s * delta;
+    }
+
+    /**
+     * Notifies the owner of the robot if its angle has changed since the
+     * last notification.
+     * @param i Index of the robot.
+     */
+    void fireAngleChange(int i) {
+        if (turned[i]) {
+            turned[i] = false;
+            owners[i].angleChanged();
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void autoMove(int i, double delta, double distance) {
+        if (rotRem[i] == 0 && distance <= edist[i]) {
+            rotRem[i] = erot[i];
+            sspeed[i] = speed[i];
+            speed[i] = 0;
+        }
+
+        if (rotRem[i] != 0) {
+            var ang = rspeed[i] * delta;
+            ang = rotRem[i] < 0 ? - ang : ang;
+            if (Math.abs(rotRem[i]) < Math.abs(ang)) {
+                ang = rotRem[i];
+                rotRem[i] = 0;
+                speed[i] = sspeed[i];
+            } else {
+                rotRem[i] -= ang;
+            }
+
+            rotate(i, ang);
+        }
+    }
+
+    private void controlMove(int i, double delta, double distance) {
+        if (distance == 0) {
+            sspeed[i] = speed[i];
+            speed[i] = 0;
+        } else {
+            speed[i] = curSpeed[i];
+        }
+
+        if (curRotSpeed[i] != 0) {
+            rotate(i, curRotSpeed[i] * delta);
+        }
+    }
+
+    private void rotate(int i, double ang) {
+        var a = angle[i] + ang;
+        if (a != angle[i]) {
+            angle[i] = a;
+            turned[i] = true;
+        }
+    }
+
+    private void alloc(int cap) {
+        kind = kind == null ? new byte[cap] : Arrays.copyOf(kind, cap);
+        x = grow(x, cap);
+        y = grow(y, cap);
+        angle = grow(angle, cap);
+        speed = grow(speed, cap);
+        dragging = dragging == null
+            ? new boolean[cap]
+            : Arrays.copyOf(dragging, cap);
+        dist = grow(dist, cap);
+        turned = turned == null
+            ? new boolean[cap]
+            : Arrays.copyOf(turned, cap);
+        ray = grow(ray, cap);
+        rayX = grow(rayX, cap);
+        rayY = grow(rayY, cap);
+        rayAngle = grow(rayAngle, cap);
+        sleeping = sleeping == null
+            ? new boolean[cap]
+            : Arrays.copyOf(sleeping, cap);
+        idle = idle == null ? new int[cap] : Arrays.copyOf(idle, cap);
+        pushed = pushed == null
+            ? new boolean[cap]
+            : Arrays.copyOf(pushed, cap);
+        restX = grow(restX, cap);
+        restY = grow(restY, cap);
+        restAngle = grow(restAngle, cap);
+        sspeed = grow(sspeed, cap);
+        rspeed = grow(rspeed, cap);
+        edist = grow(edist, cap);
+        erot = grow(erot, cap);
+        rotRem = grow(rotRem, cap);
+        curSpeed = grow(curSpeed, cap);
+        curRotSpeed = grow(curRotSpeed, cap);
+        owners = owners == null ? new Robot[cap] : Arrays.copyOf(owners, cap);
+    }
+
+    private static double[] grow(double[] arr, int cap) {
+        return arr == null ? new double[cap] : Arrays.copyOf(arr, cap);
+    }
+}
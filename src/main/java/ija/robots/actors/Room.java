@@ -7,36 +7,102 @@
 
 package ija.robots.actors;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import ija.robots.common.Rect;
 import ija.robots.common.Vec2;
-import javafx.application.Platform;
-import javafx.scene.control.Alert;
-import javafx.scene.control.Alert.AlertType;
-import javafx.scene.input.KeyCode;
-import javafx.scene.input.KeyEvent;
-import javafx.scene.layout.Pane;
-import javafx.stage.Stage;
 
 /**
- * Room with robots and obstacles.
+ * Room with robots and obstacles. The room only holds the state of the
+ * simulation and doesn't depend on any graphics, so it can be simulated
+ * without any view.
  */
 public class Room {
-    private Pane view;
-    private Timer timer;
+    /** Number of robots processed by single task. */
+    private static final int CHUNK = 512;
+    /** Height of the strips for robot collisions in spatial hash cells. */
+    private static final int STRIP_CELLS = 8;
+    /**
+     * Maximum distance of robot from its last ray at which the ray may be
+     * reused. It only covers rounding errors.
+     */
+    private static final double RAY_TOLERANCE = 1e-6;
+    /**
+     * Rays are cast again when the distance is closer than this to the
+     * value at which the robot reacts, so that the reaction is based on
+     * fresh measurement.
+     */
+    private static final double SENSOR_SLACK = 1;
+    /**
+     * Number of ticks for which robot must stay at the same place before
+     * it falls asleep.
+     */
+    static final int SLEEP_TICKS = 10;
 
     private Rect bounds;
     private ArrayList<Robot> robots = new ArrayList<>();
     private ArrayList<Obstacle> obstacles = new ArrayList<>();
+    private RobotStore store = new RobotStore(16);
+    private SpatialHash robotHash =
+        new SpatialHash(2 * Robot.RADIUS + Robot.BORDER_THICKNESS);
+    private ObstacleTree obstacleTree = new ObstacleTree();
+    private boolean obstaclesChanged = true;
+    private DistanceField field = new DistanceField();
+    /** The obstacles or bounds changed since the field was updated. */
+    private boolean fieldChanged = true;
+    private SensorMode sensorMode = SensorMode.Exact;
+    private boolean robotSensing = false;
+    private boolean continuous = false;
+    private boolean sleepAllowed = true;
+    /** Positions of the robots before they moved in this tick. */
+    private double[] startX = new double[0];
+    private double[] startY = new double[0];
+    /** Part of the move of each robot done before it hit another robot. */
+    private double[] impact = new double[0];
+    /** The longest move of a robot in this tick. */
+    private double maxMove = 0;
+    /** The obstacles or bounds changed since the rays were cast. */
+    private boolean raysChanged = true;
+
+    private SpatialHash pickHash =
+        new SpatialHash(2 * Robot.RADIUS + Robot.BORDER_THICKNESS);
+    private int pickVersion = -1;
+    private IntList pickFound = new IntList();
+    private IntList pickStack = new IntList();
+
+    private RoomStats stats = new RoomStats();
+    private Parallel parallel = new Parallel(ForkJoinPool.commonPool());
+    private double delta;
+    private long[] crossPairs = new long[0];
+    private CollisionMode collisionMode = CollisionMode.Ordered;
+    private double[] pushX = new double[0];
+    private double[] pushY = new double[0];
+    private final Parallel.Task senseTask = this::sense;
+    private final Parallel.Task moveTask = this::move;
+    private final Parallel.Task sweepTask = this::robotSweeps;
+    private final Parallel.Task impactTask = this::applyImpacts;
+    private final Parallel.Task obstacleTask = this::obstacleCollisions;
+    private final Parallel.Task stripTask = this::stripCollisions;
+    private final Parallel.Task borderTask = this::borderCollisions;
+    private final Parallel.Task pushTask = this::robotPushes;
+    private final Parallel.Task applyTask = this::applyPushes;
+    private final Parallel.Task restTask = this::rest;
+    /**
+     * Only checks whether the ticks are recorded, so that the events are
+     * created only while they are. It is never committed.
+     */
+    private final TickEvent tickProbe = new TickEvent();
 
     private Consumer<SimObj> onSelect = null;
+    private Consumer<SimObj> onAdd = null;
+    private Consumer<SimObj> onRemove = null;
     private SimObj selected = null;
 
     private Logger log = Logger.getLogger("Room");
@@ -51,82 +117,342 @@ public class Room {
      */
     public Room(Rect bounds) {
         log.info("Creating new room.");
-        view = new Pane();
-        view.setPrefWidth(bounds.width());
-        view.setPrefHeight(bounds.height());
-        view.setStyle("-fx-background-color: #222222");
         this.bounds = bounds;
-        timer = null;
-        run(true);
+    }
+
+    /**
+     * Moves the simulation forward. The tick runs in phases and each phase
+     * may run in parallel on the pool of the room. The result doesn't
+     * depend on the pool. The tick doesn't call any listeners of the
+     * objects, changes of the robot angles are only recorded and reported
+     * by {@link #fireAngleChanges()}.
+     * @param delta Time ellapsed in seconds.
+     */
+    public void tick(double delta) {
+        TickEvent evt = null;
+        if (tickProbe.isEnabled()) {
+            evt = new TickEvent();
+            evt.begin();
+        }
+        var robotHits = stats.robotCollisions();
+        var obstacleHits = stats.obstacleCollisions();
+
+        this.delta = delta;
+        ++store.version;
+
+        var start = System.nanoTime();
+        var t = start;
+        buildTree();
+        if (sensorMode == SensorMode.Field && fieldChanged) {
+            field.update(obstacles, obstacleTree, bounds);
+            fieldChanged = false;
+        }
+        if (raysChanged) {
+            // the obstacles may no longer hold the sleeping robots
+            store.forgetRays();
+            store.wakeAll();
+            raysChanged = false;
+        }
+
+        var n = store.size();
+        var chunks = (n + CHUNK - 1) / CHUNK;
+        if (robotSensing || continuous) {
+            // the robots don't move until the move phase, so the hash is
+            // also valid for the start positions of continuous collisions
+            buildRobotHash();
+        }
+        parallel.run(n, CHUNK, senseTask);
+        stats.addRays(parallel.hits(chunks));
+        t = stats.phase(Phase.Sense, t);
+
+        if (continuous) {
+            if (startX.length < n) {
+                startX = new double[Math.max(n, startX.length * 2)];
+                startY = new double[startX.length];
+                impact = new double[startX.length];
+            }
+            System.arraycopy(store.x, 0, startX, 0, n);
+            System.arraycopy(store.y, 0, startY, 0, n);
+        }
+        parallel.run(n, CHUNK, moveTask);
+        if (continuous) {
+            maxMove = 0;
+            for (int i = 0; i < n; ++i) {
+                var mx = store.x[i] - startX[i];
+                var my = store.y[i] - startY[i];
+                maxMove = Math.max(maxMove, Math.sqrt(mx * mx + my * my));
+            }
+            parallel.run(n, CHUNK, sweepTask);
+            parallel.run(n, CHUNK, impactTask);
+        }
+        t = stats.phase(Phase.Move, t);
+
+        parallel.run(n, CHUNK, obstacleTask);
+        stats.addObstacleCollisions(parallel.hits(chunks));
+        t = stats.phase(Phase.Obstacles, t);
+
+        robotCollisions();
+        t = stats.phase(Phase.Robots, t);
+
+        // collisions of robots with the border of the room
+        parallel.run(n, CHUNK, borderTask);
+        if (sleepAllowed) {
+            parallel.run(n, CHUNK, restTask);
+        }
+        t = stats.phase(Phase.Border, t);
+        stats.tick(start, t);
 
-        view.setFocusTraversable(true);
-        view.setOnMousePressed(e -> view.requestFocus());
-        view.setOnKeyPressed(e -> keyListener(e, true));
-        view.setOnKeyReleased(e -> keyListener(e, false));
+        if (evt == null) {
+            return;
+        }
+        evt.end();
+        if (evt.shouldCommit()) {
+            evt.step = delta;
+            evt.robots = n;
+            evt.obstacles = obstacles.size();
+            evt.robotContacts = stats.robotCollisions() - robotHits;
+            evt.obstacleContacts = stats.obstacleCollisions() - obstacleHits;
+            evt.commit();
+        }
     }
 
     /**
-     * Play/pause the simulation.
-     * @param play when true simulation is played, otherwise simulation is
-     * paused.
+     * Gets the counters of the work done by the ticks of the room.
+     * @return The counters of the room.
      */
-    public void run(boolean play) {
-        if (play && timer == null) {
-            log.info("Playing the simulation.");
-            timer = new Timer();
-            timer.schedule(
-                new TimerTask() {
-                    public void run() {
-                        Platform.runLater(() -> tick(10. / 1000.));
-                    }
-                },
-                0,
-                10
-            );
-        } else if (!play && timer != null) {
-            log.info("Pausing the simulation.");
-            timer.cancel();
-            timer = null;
-        } else {
-            log.info("Simulation was already playing/paused");
+    public RoomStats stats() {
+        return stats;
+    }
+
+    /**
+     * Gets the pool on which the simulation runs.
+     * @return The pool or null if the simulation runs on single thread.
+     */
+    public ForkJoinPool pool() {
+        return parallel.pool();
+    }
+
+    /**
+     * Sets the pool on which the simulation runs. By default it is the
+     * common pool.
+     * @param pool The pool or null if the simulation should run on single
+     * thread.
+     * @return The new pool.
+     */
+    public ForkJoinPool pool(ForkJoinPool pool) {
+        return parallel.pool(pool);
+    }
+
+    /**
+     * Gets the way collisions between robots are resolved.
+     * @return The collision mode.
+     */
+    public CollisionMode collisionMode() {
+        return collisionMode;
+    }
+
+    /**
+     * Sets the way collisions between robots are resolved. By default it is
+     * {@link CollisionMode#Ordered}.
+     * @param mode The new collision mode.
+     * @return The new collision mode.
+     */
+    public CollisionMode collisionMode(CollisionMode mode) {
+        return collisionMode = mode;
+    }
+
+    /**
+     * Gets the way the robots measure the distance to obstacles.
+     * @return The sensor mode.
+     */
+    public SensorMode sensorMode() {
+        return sensorMode;
+    }
+
+    /**
+     * Sets the way the robots measure the distance to obstacles. By default
+     * it is {@link SensorMode#Exact}.
+     * @param mode The new sensor mode.
+     * @return The new sensor mode.
+     */
+    public SensorMode sensorMode(SensorMode mode) {
+        return sensorMode = mode;
+    }
+
+    /**
+     * Checks whether the sensors of the robots see other robots.
+     * @return true if the robots sense other robots.
+     */
+    public boolean isRobotSensing() {
+        return robotSensing;
+    }
+
+    /**
+     * Sets whether the sensors of the robots see other robots. When
+     * enabled, robots react to robots in front of them the same way as to
+     * obstacles instead of driving into them. By default it is disabled.
+     * @param val true if the robots should sense other robots.
+     */
+    public void setRobotSensing(boolean val) {
+        robotSensing = val;
+        store.wakeAll();
+    }
+
+    /**
+     * Notifies the robots whose angle has changed in the ticks since the
+     * last call, so that their angle change listeners are called. The
+     * listeners run on the calling thread, which for rooms shown in the
+     * window must be the JavaFX thread.
+     */
+    public void fireAngleChanges() {
+        for (int i = 0; i < store.size(); ++i) {
+            store.fireAngleChange(i);
+        }
+    }
+
+    /**
+     * Checks whether robots that don't move may fall asleep.
+     * @return true if robots may sleep.
+     */
+    public boolean isSleepAllowed() {
+        return sleepAllowed;
+    }
+
+    /**
+     * Sets whether robots that don't move may fall asleep. Robot that stays
+     * at the same place and angle for several ticks is skipped by the
+     * ticks until it is moved by other robot, dragged, changed, controlled
+     * by the user or until the obstacles change. By default it is enabled.
+     * @param val true if robots may sleep.
+     */
+    public void setSleepAllowed(boolean val) {
+        sleepAllowed = val;
+        store.wakeAll();
+    }
+
+    /**
+     * Counts the robots that are asleep.
+     * @return Number of sleeping robots.
+     */
+    public int sleepingRobots() {
+        var res = 0;
+        for (int i = 0; i < store.size(); ++i) {
+            if (store.sleeping[i]) {
+                ++res;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Checks whether collisions are detected continuously along the moves
+     * of the robots.
+     * @return true if continuous collision detection is enabled.
+     */
+    public boolean isContinuous() {
+        return continuous;
+    }
+
+    /**
+     * Sets whether collisions are detected continuously along the moves of
+     * the robots. When enabled, robots stop where they first touch an
+     * obstacle or another robot during the tick, so they can't pass
+     * through thin obstacles or each other even with long ticks. Without
+     * it the collisions are found only at the end of the tick. By default
+     * it is disabled.
+     * @param val true to enable continuous collision detection.
+     */
+    public void setContinuous(boolean val) {
+        continuous = val;
+    }
+
+    /**
+     * Checks whether the rays of the sensors are cast with SIMD
+     * instructions.
+     * @return true if SIMD is used.
+     */
+    public boolean isSimd() {
+        return obstacleTree.isSimd();
+    }
+
+    /**
+     * Sets whether the rays of the sensors are cast with SIMD instructions.
+     * SIMD can be used only when the program is built with the
+     * {@code simd} profile and runs with
+     * {@code --add-modules jdk.incubator.vector}, otherwise it stays
+     * disabled. The measured distances are the same either way.
+     * @param val true to use SIMD if it is available.
+     */
+    public void setSimd(boolean val) {
+        obstacleTree.setSimd(val);
+    }
+
+    /**
+     * Finds the topmost object at the given position. Robots are above
+     * obstacles and objects added later are above the older ones. Obstacles
+     * that are dragged are not found.
+     * @param x X coordinate of the position.
+     * @param y Y coordinate of the position.
+     * @return The found object or null if there is no object.
+     */
+    public SimObj objectAt(double x, double y) {
+        // the hash is rebuilt only when the robots have changed
+        if (pickVersion != store.version) {
+            pickHash.clear(bounds, store.size());
+            for (int i = 0; i < store.size(); ++i) {
+                pickHash.insert(i, store.x[i], store.y[i]);
+            }
+            pickHash.build();
+            pickVersion = store.version;
         }
+
+        var rob = -1;
+        pickHash.query(x, y, pickFound);
+        for (int k = 0; k < pickFound.size(); ++k) {
+            var i = pickFound.get(k);
+            if (i > rob && inCircle(x, y, store.x[i], store.y[i], Robot.HALF)) {
+                rob = i;
+            }
+        }
+        if (rob >= 0) {
+            return store.owner(rob);
+        }
+
+        buildTree();
+        // the results are sorted, so the last one is on top
+        var cnt = obstacleTree.query(x, y, x, y, pickFound, pickStack);
+        return cnt == 0 ? null : obstacles.get(pickFound.get(cnt - 1));
     }
 
     /**
      * Saves room to the file
-     * @param stage window
      * @param filename name of the file to save into
+     * @param size size of the room written to the file
+     * @throws IOException when the file cannot be written
      */
-    public void save(Stage stage, String filename) {
-        log.info("Saving the room to file '" + filename + "'");
-        try {
-            FileWriter writer = new FileWriter(filename);
-            writer.write(
-                "room: " + stage.getWidth() + "x" +
-                (stage.getHeight() - 80) + "\n"
-            );
-            for (var obst : obstacles) {
-                writer.write(obst + "\n");
-            }
-            for (var rob : robots) {
-                writer.write(rob + "\n");
-            }
-            writer.close();
-        } catch (IOException e) {
-            log.severe("Failed to save room: " + e.getMessage());
-            Alert alert = new Alert(
-                AlertType.ERROR,
-                e.getMessage()
-            );
-            alert.show();
-            return;
-        }
+    public void save(String filename, Vec2 size) throws IOException {
+        log.info(() -> "Saving the room to file '" + filename + "'");
+        snapshot(size).write(filename);
+    }
 
-        Alert alert = new Alert(
-            AlertType.CONFIRMATION,
-            "The room was successfully saved"
-        );
-        alert.show();
+    /**
+     * Copies the state of the room so that it can be saved later, for
+     * example on another thread.
+     * @param size size of the room written to the file
+     * @return Copy of the state of the room.
+     */
+    public RoomSnapshot snapshot(Vec2 size) {
+        return new RoomSnapshot(this, store, size);
+    }
+
+    /**
+     * Publishes the positions of the robots to the frame buffer if they have
+     * changed since the last publication to the buffer.
+     * @param frames Buffer to publish to.
+     * @return true if new frame was published.
+     */
+    public boolean publish(FrameBuffer frames) {
+        return frames.publish(store);
     }
 
     /**
@@ -137,16 +463,29 @@ public class Room {
         return bounds;
     }
 
+    /**
+     * Gets the robots in the room.
+     * @return Unmodifiable list of the robots in the room.
+     */
+    public List<Robot> robots() {
+        return Collections.unmodifiableList(robots);
+    }
+
+    /**
+     * Gets the obstacles in the room.
+     * @return Unmodifiable list of the obstacles in the room.
+     */
+    public List<Obstacle> obstacles() {
+        return Collections.unmodifiableList(obstacles);
+    }
+
     /**
      * Adds robot to the room.
      * @param robot robot to add to the room.
      */
     public void add(Robot robot) {
-        log.info("Adding robot: " + robot);
-        robot.onSelect(o -> select(o));
-        robots.add(robot);
-        view.getChildren().add(robot.getShape());
-        view.getChildren().add(robot.getEye());
+        log.info(() -> "Adding robot: " + robot);
+        attach(robot);
     }
 
     /**
@@ -154,10 +493,8 @@ public class Room {
      * @param obstacle Obstacle to add to the room.
      */
     public void add(Obstacle obstacle) {
-        log.info("Adding obstacle: " + obstacle);
-        obstacle.onSelect(o -> select(o));
-        obstacles.add(obstacle);
-        view.getChildren().add(obstacle.getShape());
+        log.info(() -> "Adding obstacle: " + obstacle);
+        attach(obstacle);
     }
 
     /**
@@ -165,28 +502,25 @@ public class Room {
      * @param obj Robot/Obstacle to remove.
      */
     public void remove(SimObj obj) {
-        log.info("Removing object: " + obj);
+        log.info(() -> "Removing object: " + obj);
 
         if (obj == selected) {
             select(null);
         }
 
-        if (obj instanceof Robot r) {
-            view.getChildren().remove(r.getShape());
-            view.getChildren().remove(r.getEye());
+        if (obj instanceof Robot r && r.store == store) {
             robots.remove(r);
+            r.detach();
+            store.wakeAll();
         } else if (obj instanceof Obstacle o) {
-            view.getChildren().remove(o.getShape());
+            o.setOnChange(null);
             obstacles.remove(o);
+            obstaclesChanged = true;
         }
-    }
 
-    /**
-     * Gets the view of the room that can be drawn.
-     * @return Drawable view of the room.
-     */
-    public Pane getGraphics() {
-        return view;
+        if (onRemove != null) {
+            onRemove.accept(obj);
+        }
     }
 
     /**
@@ -195,16 +529,16 @@ public class Room {
      */
     public void resize(Rect bounds) {
         this.bounds = bounds;
-        view.setPrefWidth(bounds.width());
-        view.setPrefHeight(bounds.height());
+        fieldChanged = true;
+        raysChanged = true;
     }
 
     /**
-     * Checks whether the simulation is running.
-     * @return true if the simulation is running, otherwise false.
+     * Gets the currently selected object.
+     * @return The selected object or null if nothing is selected.
      */
-    public boolean isRunning() {
-        return timer != null;
+    public SimObj selected() {
+        return selected;
     }
 
     /**
@@ -215,21 +549,48 @@ public class Room {
         onSelect = val;
     }
 
+    /**
+     * Sets the onAdd event that is triggered when object is added to the
+     * room.
+     * @param val The event handler.
+     */
+    public void setOnAdd(Consumer<SimObj> val) {
+        onAdd = val;
+    }
+
+    /**
+     * Sets the onRemove event that is triggered when object is removed from
+     * the room.
+     * @param val The event handler.
+     */
+    public void setOnRemove(Consumer<SimObj> val) {
+        onRemove = val;
+    }
+
     /**
      * Replaces one robot with another.
      * @param o Robot to replace.
      * @param n New robot to replace with.
      */
     public void changeRobot(Robot o, Robot n) {
-        log.info("Changing robot:");
-        log.info("    from: " + o);
-        log.info("    to:   " + n);
+        log.info(() ->
+            "Changing robot:\n    from: " + o + "\n    to:   " + n
+        );
+        var evt = new ChangeRobotEvent();
+        evt.begin();
         var select = (SimObj)o == selected;
         remove(o);
         add(n);
         if (select) {
             n.setSelected(true);
         }
+        evt.end();
+        if (evt.shouldCommit()) {
+            evt.from = o.getClass().getSimpleName();
+            evt.to = n.getClass().getSimpleName();
+            evt.robots = robots.size();
+            evt.commit();
+        }
     }
 
     /**
@@ -238,7 +599,7 @@ public class Room {
      * @param robots new robots
      */
     public void clear(ArrayList<Obstacle> obstacles, ArrayList<Robot> robots) {
-        log.info(
+        log.info(() ->
             "Replacing "
                 + this.robots.size()
                 + " robots and "
@@ -250,22 +611,38 @@ public class Room {
                 + " obstacles."
         );
 
-        for (var obst : this.obstacles) {
-            view.getChildren().remove(obst.getShape());
-        }
-        for (var rob : this.robots) {
-            view.getChildren().remove(rob.getShape());
-            view.getChildren().remove(rob.getEye());
+        if (selected != null) {
+            select(null);
         }
 
+        var oldObstacles = new ArrayList<>(this.obstacles);
+        var oldRobots = new ArrayList<>(this.robots);
+        for (var obst : oldObstacles) {
+            obst.setOnChange(null);
+        }
+        for (var rob : oldRobots) {
+            rob.release();
+        }
         this.obstacles.clear();
         this.robots.clear();
+        store.clear();
+        obstaclesChanged = true;
+
+        if (onRemove != null) {
+            for (var obst : oldObstacles) {
+                onRemove.accept(obst);
+            }
+            for (var rob : oldRobots) {
+                onRemove.accept(rob);
+            }
+        }
 
+        // the objects are already summarized in the log above
         for (var obst : obstacles) {
-            add(obst);
+            attach(obst);
         }
         for (var rob : robots) {
-            add(rob);
+            attach(rob);
         }
     }
 
@@ -273,179 +650,628 @@ public class Room {
     //                               PRIVATE                                 //
     //=======================================================================//
 
-    private void tick(double delta) {
-        moveRobots(delta);
+    private void attach(Robot robot) {
+        robot.onSelect(o -> select(o));
+        robot.attach(store);
+        robots.add(robot);
+        if (onAdd != null) {
+            onAdd.accept(robot);
+        }
+    }
 
-        // collisions of robots with the border of the room
-        for (var r : robots) {
-            if (!r.isDragging()) {
-                borderCollision(r);
+    private void attach(Obstacle obstacle) {
+        obstacle.onSelect(o -> select(o));
+        obstacle.setOnChange(() -> obstaclesChanged = true);
+        obstacles.add(obstacle);
+        obstaclesChanged = true;
+        if (onAdd != null) {
+            onAdd.accept(obstacle);
+        }
+    }
+
+    private void buildTree() {
+        if (obstaclesChanged) {
+            obstacleTree.build(obstacles);
+            obstaclesChanged = false;
+            fieldChanged = true;
+            raysChanged = true;
+        }
+    }
+
+    private void sense(int start, int end, int c, Parallel.Scratch s) {
+        for (int i = start; i < end; ++i) {
+            if (!store.dragging[i] && !store.sleeping[i]) {
+                store.dist[i] = sensorDistance(i, s);
             }
         }
     }
 
-    private void keyListener(KeyEvent event, boolean start) {
-        if (selected != null && event.getCode() == KeyCode.DELETE) {
-            remove(selected);
-            return;
+    private void move(int start, int end, int c, Parallel.Scratch s) {
+        for (int i = start; i < end; ++i) {
+            if (!store.dragging[i] && !store.sleeping[i]) {
+                store.move(i, delta, store.dist[i]);
+                if (continuous) {
+                    obstacleSweep(i, s);
+                }
+            }
         }
+    }
 
-        if (!isRunning() || !(selected instanceof ControlRobot))
+    /**
+     * Moves the robot back to the place where it first touched an obstacle
+     * on its way from its start position.
+     */
+    private void obstacleSweep(int rob, Parallel.Scratch s) {
+        var x0 = startX[rob];
+        var y0 = startY[rob];
+        var mx = store.x[rob] - x0;
+        var my = store.y[rob] - y0;
+        if (mx == 0 && my == 0) {
             return;
+        }
 
-        var rob = (ControlRobot)selected;
-        switch (event.getCode()) {
-            case UP:
-                rob.forward(start);
-                break;
-            case RIGHT:
-                rob.right(start);
-                break;
-            case LEFT:
-               rob.left(start);
-                break;
-            default:
-                return;
+        var h = Robot.HALF;
+        var cnt = obstacleTree.query(
+            Math.min(x0, x0 + mx) - h,
+            Math.min(y0, y0 + my) - h,
+            Math.max(x0, x0 + mx) + h,
+            Math.max(y0, y0 + my) + h,
+            s.found,
+            s.stack
+        );
+        var toi = 1.;
+        for (int i = 0; i < cnt; ++i) {
+            var o = s.found.get(i);
+            toi = Math.min(toi, rectImpact(
+                x0,
+                y0,
+                mx,
+                my,
+                obstacleTree.left(o),
+                obstacleTree.top(o),
+                obstacleTree.right(o),
+                obstacleTree.bottom(o)
+            ));
+        }
+        if (toi < 1) {
+            store.x[rob] = x0 + mx * toi;
+            store.y[rob] = y0 + my * toi;
         }
-        event.consume();
     }
 
-    private void moveRobots(double delta) {
-        for (var r : robots) {
-            if (!r.isDragging()) {
-                r.move(delta, obstacleDistance(r));
+    /**
+     * Finds the part of the moves of the robots that they can do before
+     * they hit other robots. Other robots are found in the robot hash by
+     * their start positions.
+     */
+    private void robotSweeps(int start, int end, int c, Parallel.Scratch s) {
+        var reach = maxMove + 2 * Robot.HALF;
+        for (int i = start; i < end; ++i) {
+            impact[i] = 1;
+            if (store.dragging[i] || store.sleeping[i]) {
+                continue;
+            }
+            var x0 = startX[i];
+            var y0 = startY[i];
+            var mx = store.x[i] - x0;
+            var my = store.y[i] - y0;
+            var cnt = robotHash.query(
+                Math.min(x0, x0 + mx) - reach,
+                Math.min(y0, y0 + my) - reach,
+                Math.max(x0, x0 + mx) + reach,
+                Math.max(y0, y0 + my) + reach,
+                s.found
+            );
+            for (int k = 0; k < cnt; ++k) {
+                var j = s.found.get(k);
+                if (j != i) {
+                    impact[i] = Math.min(impact[i], circleImpact(i, j));
+                }
             }
         }
+    }
 
-        for (var o : obstacles) {
-            if (o.isDragging()) {
+    private void rest(int start, int end, int c, Parallel.Scratch s) {
+        for (int i = start; i < end; ++i) {
+            if (store.dragging[i]) {
                 continue;
             }
-            for (var r : robots) {
-                if (!r.isDragging()) {
-                    obstacleCollision(r, o);
+            if (robotSensing && store.kind[i] == RobotStore.AUTO) {
+                // robots that come close must be sensed
+                store.wake(i);
+            } else {
+                store.rest(i, SLEEP_TICKS);
+            }
+        }
+    }
+
+    private void applyImpacts(int start, int end, int c, Parallel.Scratch s) {
+        for (int i = start; i < end; ++i) {
+            if (impact[i] < 1) {
+                store.x[i] = startX[i] + (store.x[i] - startX[i]) * impact[i];
+                store.y[i] = startY[i] + (store.y[i] - startY[i]) * impact[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the part of the moves of two robots after which they touch.
+     * Robots that already overlap or move away from each other never hit.
+     * @return Part of the moves in range 0 to 1, 1 if they don't hit.
+     */
+    private double circleImpact(int r1, int r2) {
+        var dx = startX[r2] - startX[r1];
+        var dy = startY[r2] - startY[r1];
+        var vx = (store.x[r2] - startX[r2]) - (store.x[r1] - startX[r1]);
+        var vy = (store.y[r2] - startY[r2]) - (store.y[r1] - startY[r1]);
+        var d = 2 * Robot.HALF;
+
+        var a = vx * vx + vy * vy;
+        var b = dx * vx + dy * vy;
+        var c = dx * dx + dy * dy - d * d;
+        if (c < 0 || b >= 0) {
+            return 1;
+        }
+        var disc = b * b - a * c;
+        if (disc < 0) {
+            return 1;
+        }
+        return Math.min(1, (-b - Math.sqrt(disc)) / a);
+    }
+
+    /**
+     * Finds the part of the move of a robot after which it touches a
+     * rectangle. The robot is swept along the move and tested against the
+     * rectangle extended by the radius of the robot with rounded corners.
+     * Robots that already overlap the rectangle or only slide along it
+     * never hit.
+     * @param x X coordinate of the start of the robot.
+     * @param y Y coordinate of the start of the robot.
+     * @param mx X component of the move.
+     * @param my Y component of the move.
+     * @return Part of the move in range 0 to 1, 1 if it doesn't hit.
+     */
+    private static double rectImpact(
+        double x,
+        double y,
+        double mx,
+        double my,
+        double l,
+        double t,
+        double r,
+        double b
+    ) {
+        var h = Robot.HALF;
+        var ox = Math.max(0, Math.max(l - x, x - r));
+        var oy = Math.max(0, Math.max(t - y, y - b));
+        if (ox * ox + oy * oy < h * h) {
+            return 1;
+        }
+
+        // entry to the rectangle extended by the radius
+        var tmin = 0.;
+        var tmax = 1.;
+        if (mx != 0) {
+            var t1 = (l - h - x) / mx;
+            var t2 = (r + h - x) / mx;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        } else if (x < l - h || x > r + h) {
+            return 1;
+        }
+        if (my != 0) {
+            var t1 = (t - h - y) / my;
+            var t2 = (b + h - y) / my;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        } else if (y < t - h || y > b + h) {
+            return 1;
+        }
+        if (tmin > tmax) {
+            return 1;
+        }
+
+        var px = x + mx * tmin;
+        var py = y + my * tmin;
+        var cx = Math.max(l, Math.min(r, px));
+        var cy = Math.max(t, Math.min(b, py));
+        if (px != cx && py != cy) {
+            // the corner is rounded, hit the circle around it
+            var fx = x - cx;
+            var fy = y - cy;
+            var qa = mx * mx + my * my;
+            var qb = fx * mx + fy * my;
+            var disc = qb * qb - qa * (fx * fx + fy * fy - h * h);
+            if (disc < 0) {
+                return 1;
+            }
+            tmin = (-qb - Math.sqrt(disc)) / qa;
+            if (tmin < 0 || tmin > 1) {
+                return 1;
+            }
+            px = x + mx * tmin;
+            py = y + my * tmin;
+        }
+
+        // the robot must move into the rectangle, not along it
+        if ((px - cx) * mx + (py - cy) * my >= 0) {
+            return 1;
+        }
+        return tmin;
+    }
+
+    private void obstacleCollisions(
+        int start,
+        int end,
+        int c,
+        Parallel.Scratch s
+    ) {
+        for (int i = start; i < end; ++i) {
+            if (!store.dragging[i] && !store.sleeping[i]) {
+                obstacleCollisions(i, s);
+            }
+        }
+    }
+
+    private void borderCollisions(
+        int start,
+        int end,
+        int c,
+        Parallel.Scratch s
+    ) {
+        // sleeping robots may have been pushed by awake robots in this tick
+        for (int i = start; i < end; ++i) {
+            if (!store.dragging[i]) {
+                borderCollision(i);
+            }
+        }
+    }
+
+    /**
+     * Inserts the robots that are not dragged to the robot hash.
+     */
+    private void buildRobotHash() {
+        var n = store.size();
+        var x = store.x;
+        var y = store.y;
+        robotHash.clear(bounds, n);
+        for (int i = 0; i < n; ++i) {
+            if (!store.dragging[i]) {
+                robotHash.insert(i, x[i], y[i]);
+            }
+        }
+        robotHash.build();
+    }
+
+    private void robotCollisions() {
+        var n = store.size();
+        buildRobotHash();
+
+        if (collisionMode == CollisionMode.Jacobi) {
+            if (pushX.length < n) {
+                pushX = new double[Math.max(n, pushX.length * 2)];
+                pushY = new double[pushX.length];
+            }
+            parallel.run(n, CHUNK, pushTask);
+            parallel.run(n, CHUNK, applyTask);
+            // both robots of each pair have counted it
+            stats.addRobotCollisions(
+                parallel.hits((n + CHUNK - 1) / CHUNK) / 2
+            );
+            return;
+        }
+
+        // The room is split into horizontal strips of cells. Each strip
+        // resolves the collisions between its own robots, so the strips can
+        // run in parallel. Pairs of robots from different strips are
+        // collected and resolved afterwards in the order of the robot
+        // indexes.
+        var strips = (robotHash.rows() + STRIP_CELLS - 1) / STRIP_CELLS;
+        parallel.run(strips, 1, stripTask);
+
+        var cnt = 0;
+        for (int s = 0; s < strips; ++s) {
+            cnt += parallel.scratch(s).pairs.size() / 2;
+        }
+        if (crossPairs.length < cnt) {
+            crossPairs = new long[Math.max(cnt, crossPairs.length * 2)];
+        }
+        cnt = 0;
+        for (int s = 0; s < strips; ++s) {
+            var pairs = parallel.scratch(s).pairs;
+            for (int k = 0; k < pairs.size(); k += 2) {
+                crossPairs[cnt++] =
+                    ((long)pairs.get(k) << 32) | pairs.get(k + 1);
+            }
+        }
+        Arrays.sort(crossPairs, 0, cnt);
+        var hits = parallel.hits(strips);
+        for (int k = 0; k < cnt; ++k) {
+            var i = (int)(crossPairs[k] >>> 32);
+            var j = (int)crossPairs[k];
+            if (!isResting(i, j) && robotCollision(i, j)) {
+                ++hits;
+            }
+        }
+        stats.addRobotCollisions(hits);
+    }
+
+    private void stripCollisions(
+        int start,
+        int end,
+        int c,
+        Parallel.Scratch sc
+    ) {
+        var x = store.x;
+        var y = store.y;
+        for (int s = start; s < end; ++s) {
+            sc.pairs.clear();
+            var from = robotHash.rowStart(s * STRIP_CELLS);
+            var to = robotHash.rowStart(
+                Math.min((s + 1) * STRIP_CELLS, robotHash.rows())
+            );
+            for (int k = from; k < to; ++k) {
+                var i = robotHash.item(k);
+                robotHash.query(x[i], y[i], sc.found);
+                for (int f = 0; f < sc.found.size(); ++f) {
+                    var j = sc.found.get(f);
+                    if (j <= i) {
+                        continue;
+                    }
+                    if (robotHash.rowOf(j) / STRIP_CELLS == s) {
+                        if (!isResting(i, j) && robotCollision(i, j)) {
+                            ++sc.hits;
+                        }
+                    } else {
+                        sc.pairs.add(i);
+                        sc.pairs.add(j);
+                    }
                 }
             }
         }
+    }
+
+    /**
+     * Checks whether both robots sleep and weren't pushed in this tick.
+     * Such robots didn't collide in the last tick and haven't moved since,
+     * so they can't collide now.
+     */
+    private boolean isResting(int r1, int r2) {
+        return store.sleeping[r1] && !store.pushed[r1]
+            && store.sleeping[r2] && !store.pushed[r2];
+    }
 
-        for (int i = 0; i < robots.size(); ++i) {
-            if (robots.get(i).isDragging()) {
+    private void obstacleCollisions(int rob, Parallel.Scratch s) {
+        var x = store.x[rob];
+        var y = store.y[rob];
+        var cnt = obstacleTree.query(
+            x - Robot.HALF,
+            y - Robot.HALF,
+            x + Robot.HALF,
+            y + Robot.HALF,
+            s.found,
+            s.stack
+        );
+        // obstacles are resolved in the order of their indexes, when the
+        // robot is moved it may touch obstacles that weren't found before
+        var last = -1;
+        for (int i = 0; i < cnt; ++i) {
+            var o = s.found.get(i);
+            if (o <= last) {
                 continue;
             }
-            for (int j = i + 1; j < robots.size(); ++j) {
-                if (!robots.get(j).isDragging()) {
-                    robotCollision(robots.get(i), robots.get(j));
-                }
+            last = o;
+            if (obstacleCollision(rob, o)) {
+                ++s.hits;
+                store.pushed[rob] = true;
+                x = store.x[rob];
+                y = store.y[rob];
+                cnt = obstacleTree.query(
+                    x - Robot.HALF,
+                    y - Robot.HALF,
+                    x + Robot.HALF,
+                    y + Robot.HALF,
+                    s.found,
+                    s.stack
+                );
+                i = -1;
             }
         }
     }
 
-    private void borderCollision(Robot rob) {
-        var bounds = bounds();
-        var r = rob.hitbox();
+    private void borderCollision(int rob) {
+        var h = Robot.HALF;
+
+        var x = store.x[rob];
+        var y = store.y[rob];
 
-        if (r.left() < bounds.left()) {
-            r = r.left(bounds.left());
-        } else if (r.right() > bounds.right()) {
-            r = r.right(bounds.right());
+        if (x - h < bounds.left()) {
+            store.x[rob] = bounds.left() + h;
+        } else if (x + h > bounds.right()) {
+            store.x[rob] = bounds.right() - h;
         }
 
-        if (r.top() < bounds.top()) {
-            r = r.top(bounds.top());
-        } else if (r.bottom() > bounds.bottom()) {
-            r = r.bottom(bounds.bottom());
+        if (y - h < bounds.top()) {
+            store.y[rob] = bounds.top() + h;
+        } else if (y + h > bounds.bottom()) {
+            store.y[rob] = bounds.bottom() - h;
         }
 
-        rob.hitbox(r);
+        if (x != store.x[rob] || y != store.y[rob]) {
+            store.pushed[rob] = true;
+        }
     }
 
-    private void obstacleCollision(Robot rob, Obstacle obs) {
+    private boolean obstacleCollision(int rob, int obs) {
         // circle (robot)
-        var c = rob.hitbox();
+        var h = Robot.HALF;
+        var cx = store.x[rob];
+        var cy = store.y[rob];
         // rectangle (obstacle)
-        var r = obs.hitbox();
+        var l = obstacleTree.left(obs);
+        var t = obstacleTree.top(obs);
+        var r = obstacleTree.right(obs);
+        var b = obstacleTree.bottom(obs);
 
         // check edge overlap
-        var center = c.topLeft().add(c.botRight()).div(2);
-        var cx = center.x();
-        var cy = center.y();
         // horizontal edge
-        if (r.horizontal().contains(cx)) {
+        if (l < cx && cx < r) {
             // top edge of the obstacle
-            if (r.vertical().contains(c.bottom())) {
-                rob.hitbox(c.bottom(r.top()));
-                return;
+            if (t < cy + h && cy + h < b) {
+                store.y[rob] = t - h;
+                return true;
             }
             // bottom edge of obstacle
-            if (r.vertical().contains(c.top())) {
-                rob.hitbox(c.top(r.bottom()));
-                return;
+            if (t < cy - h && cy - h < b) {
+                store.y[rob] = b + h;
+                return true;
             }
             // no overlap
-            return;
+            return false;
         }
         // vertical edge
-        if (r.vertical().contains(cy)) {
+        if (t < cy && cy < b) {
             // left edge of the obstacle
-            if (r.horizontal().contains(c.right())) {
-                rob.hitbox(c.right(r.left()));
-                return;
+            if (l < cx + h && cx + h < r) {
+                store.x[rob] = l - h;
+                return true;
             }
             // right edge of the obstacle
-            if (r.horizontal().contains(c.left())) {
-                rob.hitbox(c.left(r.right()));
-                return;
+            if (l < cx - h && cx - h < r) {
+                store.x[rob] = r + h;
+                return true;
             }
             // no overlap
-            return;
+            return false;
         }
 
         // check corner overlap
-        var radius = c.width() / 2;
-        if (r.topLeft().isInCircle(center, radius)) {
-            cornerCollision(rob, r.topLeft());
-        } else if (r.topRight().isInCircle(center, radius)) {
-            cornerCollision(rob, r.topRight());
-        } else if (r.botRight().isInCircle(center, radius)) {
-            cornerCollision(rob, r.botRight());
-        } else if (r.botLeft().isInCircle(center, radius)) {
-            cornerCollision(rob, r.botLeft());
+        if (inCircle(l, t, cx, cy, h)) {
+            cornerCollision(rob, l, t);
+        } else if (inCircle(r, t, cx, cy, h)) {
+            cornerCollision(rob, r, t);
+        } else if (inCircle(r, b, cx, cy, h)) {
+            cornerCollision(rob, r, b);
+        } else if (inCircle(l, b, cx, cy, h)) {
+            cornerCollision(rob, l, b);
+        } else {
+            return false;
         }
+        return true;
+    }
+
+    private void cornerCollision(int rob, double px, double py) {
+        var mx = px - store.x[rob];
+        var my = py - store.y[rob];
+        var mul = Robot.HALF / Math.sqrt(mx * mx + my * my);
+
+        store.x[rob] += mx - mx * mul;
+        store.y[rob] += my - my * mul;
     }
 
-    private void cornerCollision(Robot rob, Vec2 p) {
-        var box = rob.hitbox();
-        var c = box.topLeft().add(box.botRight()).div(2);
-        var r = box.width() / 2;
+    private void robotPushes(int start, int end, int c, Parallel.Scratch s) {
+        var x = store.x;
+        var y = store.y;
+        for (int i = start; i < end; ++i) {
+            pushX[i] = 0;
+            pushY[i] = 0;
+            if (store.dragging[i]) {
+                continue;
+            }
 
-        var mv = p.sub(c);
-        mv = mv.sub(mv.mul(r / mv.len()));
+            // Only the colliding robots are kept. They are sorted by their
+            // position so that the pushes are always summed in the same
+            // order. Robots at the same position give the same push.
+            var col = s.pairs;
+            col.clear();
+            robotHash.query(x[i], y[i], s.found);
+            for (int f = 0; f < s.found.size(); ++f) {
+                var j = s.found.get(f);
+                var hit = !isResting(i, j)
+                    && inCircle(x[j], y[j], x[i], y[i], Robot.HALF * 2);
+                if (j != i && hit) {
+                    insertByPos(col, j);
+                }
+            }
 
-        rob.hitbox(box.moveBy(mv));
+            s.hits += col.size();
+            for (int k = 0; k < col.size(); ++k) {
+                var j = col.get(k);
+                var dx = x[i] - x[j];
+                var dy = y[i] - y[j];
+                var dirLen = Math.sqrt(dx * dx + dy * dy);
+                var over = Robot.HALF * 2 - dirLen;
+                var mul = dirLen == 0 ? 0 : over / (2 * dirLen);
+                pushX[i] += dx * mul;
+                pushY[i] += dy * mul;
+            }
+        }
     }
 
-    private void robotCollision(Robot r1, Robot r2) {
-        var c1 = r1.hitbox();
-        var c2 = r2.hitbox();
-        var dir = c2.topLeft().sub(c1.topLeft());
-        var cw = (c1.width() + c2.width()) / 2;
-        var dirLen = dir.len();
-        var over = cw - dirLen;
+    private void applyPushes(int start, int end, int c, Parallel.Scratch s) {
+        for (int i = start; i < end; ++i) {
+            store.x[i] += pushX[i];
+            store.y[i] += pushY[i];
+            if (pushX[i] != 0 || pushY[i] != 0) {
+                store.pushed[i] = true;
+            }
+        }
+    }
+
+    private void insertByPos(IntList list, int rob) {
+        var x = store.x;
+        var y = store.y;
+        list.add(rob);
+        var k = list.size() - 1;
+        for (; k > 0; --k) {
+            var o = list.get(k - 1);
+            if (x[o] < x[rob] || (x[o] == x[rob] && y[o] <= y[rob])) {
+                break;
+            }
+            list.set(k, o);
+        }
+        list.set(k, rob);
+    }
+
+    private boolean robotCollision(int r1, int r2) {
+        var dx = store.x[r2] - store.x[r1];
+        var dy = store.y[r2] - store.y[r1];
+        var dirLen = Math.sqrt(dx * dx + dy * dy);
+        var over = Robot.HALF * 2 - dirLen;
 
         if (over <= 0) {
             // No collision
-            return;
+            return false;
         }
 
-        dir = dirLen == 0 ? new Vec2(0, 0) : dir.mul(over / (2 * dirLen));
-        r1.hitbox(c1.moveBy(dir.negate()));
-        r2.hitbox(c2.moveBy(dir));
+        var mul = dirLen == 0 ? 0 : over / (2 * dirLen);
+        dx *= mul;
+        dy *= mul;
+        store.x[r1] -= dx;
+        store.y[r1] -= dy;
+        store.x[r2] += dx;
+        store.y[r2] += dy;
+        store.pushed[r1] = store.pushed[r2] = true;
+        return true;
+    }
+
+    private static boolean inCircle(
+        double px,
+        double py,
+        double cx,
+        double cy,
+        double r
+    ) {
+        var dx = px - cx;
+        var dy = py - cy;
+        return dx * dx + dy * dy < r * r;
     }
 
     private void select(SimObj obj) {
-        log.info("Selecting new object: " + obj);
+        log.info(() -> "Selecting new object: " + obj);
         if (selected != null && selected != obj) {
-            log.info("Deselecting old object: " + selected);
+            var old = selected;
+            log.info(() -> "Deselecting old object: " + old);
             var evt = selected.onSelect();
             selected.onSelect(null);
             selected.setSelected(false);
@@ -458,62 +1284,141 @@ public class Room {
         }
     }
 
-    private double obstacleDistance(Robot rob) {
-        var r = rob.hitbox();
-        var c = r.topLeft().add(r.botRight()).div(2.0);
-        var d = rob.vecAngle();
-
-        double res = rectDistance(
-            c, d, new Rect(0, 0, bounds.width(), bounds.height())
-        );
+    /**
+     * Gets the distance measured by the sensor of the robot. Other robots
+     * are sensed only if robot sensing is enabled and only up to the
+     * distance at which the robot reacts, further robots don't change what
+     * the robot does.
+     */
+    private double sensorDistance(int rob, Parallel.Scratch s) {
+        var res = obstacleDistance(rob, s);
+        if (robotSensing) {
+            var range = Math.min(res, store.sensorLimit(rob) + SENSOR_SLACK);
+            if (range >= 0) {
+                res = Math.min(res, robotDistance(rob, range, s));
+            }
+        }
+        return res;
+    }
 
-        for (var o : obstacles) {
-            if (!o.isDragging()) {
-                res = Math.min(res, rectDistance(c, d, o.hitbox()));
+    /**
+     * Gets the distance from the robot to the closest obstacle or border in
+     * front of it. The last ray is reused while the robot only moves
+     * forward along it: the robot is then closer to the same hit by the
+     * distance it has travelled. The ray is cast again when the robot
+     * turns, is pushed aside or when the distance gets close to the value
+     * at which the robot reacts.
+     */
+    private double obstacleDistance(int rob, Parallel.Scratch s) {
+        var ray = store.ray[rob];
+        var angle = store.angle[rob];
+        var dx = Math.cos(angle);
+        var dy = Math.sin(angle);
+        if (!Double.isNaN(ray) && angle == store.rayAngle[rob]) {
+            var ox = store.x[rob] - store.rayX[rob];
+            var oy = store.y[rob] - store.rayY[rob];
+            var along = ox * dx + oy * dy;
+            var aside = Math.abs(ox * dy - oy * dx);
+            var res = ray - along - Robot.HALF;
+            if (
+                along >= 0
+                && aside <= RAY_TOLERANCE
+                && res > store.sensorLimit(rob) + SENSOR_SLACK
+            ) {
+                return Math.max(0., res);
             }
         }
 
-        return Math.max(
-            0.,
-            Math.min(res - r.width() / 2, Double.POSITIVE_INFINITY)
-        );
+        ++s.hits;
+        ray = castRay(store.x[rob], store.y[rob], dx, dy, s);
+        store.ray[rob] = ray;
+        store.rayX[rob] = store.x[rob];
+        store.rayY[rob] = store.y[rob];
+        store.rayAngle[rob] = angle;
+        return Math.max(0., ray - Robot.HALF);
     }
 
-    private double rectDistance(Vec2 p, Vec2 d, Rect r) {
-        return Math.min(
-            Math.min(
-                segmentDistance(p, d, r.topLeft(), r.topRight()),
-                segmentDistance(p, d, r.topRight(), r.botRight())
-            ),
-            Math.min(
-                segmentDistance(p, d, r.botLeft(), r.botRight()),
-                segmentDistance(p, d, r.topLeft(), r.botLeft())
-            )
+    /**
+     * Finds the distance from the point to the closest obstacle or border
+     * of the room in the given direction.
+     */
+    private double castRay(
+        double cx,
+        double cy,
+        double dx,
+        double dy,
+        Parallel.Scratch s
+    ) {
+        double res = ObstacleTree.rectDistance(
+            cx, cy, dx, dy, 0, 0, bounds.width(), bounds.height()
         );
-    }
-
-    private double segmentDistance(Vec2 p, Vec2 d, Vec2 a, Vec2 b) {
-        var is = lineIntersection(p, d, a, a.sub(b));
-        if (Double.isNaN(is.x())
-            || Double.isNaN(is.y())
-            || (!inRange(is.x(), a.x(), b.x()) && !inRange(is.y(), a.y(), b.y()))
-        ) {
-            return Double.POSITIVE_INFINITY;
-        }
-        var v = is.sub(p);
-        if (d.dot(v) < 0) {
-            return Double.POSITIVE_INFINITY;
+        if (sensorMode == SensorMode.Field) {
+            res = field.trace(cx, cy, dx, dy, res, obstacleTree, s);
+        } else {
+            res = obstacleTree.rayCast(cx, cy, dx, dy, res, s.stack);
         }
-
-        return Math.sqrt(v.x() * v.x() + v.y() * v.y());
+        return res;
     }
 
-    private Vec2 lineIntersection(Vec2 p1, Vec2 d1, Vec2 p2, Vec2 d2) {
-        var u = p2.sub(p1).cross(d1) / d1.cross(d2);
-        return p2.add(d2.mul(u));
+    /**
+     * Gets the free distance in front of the robot before it touches other
+     * robot. The circle of the robot is swept along the ray in steps of
+     * single cell and only the robots near each step are tested, so the
+     * cost depends on the number of robots near the ray.
+     * @return The distance or infinity if no robot is closer than range.
+     */
+    private double robotDistance(int rob, double range, Parallel.Scratch s) {
+        var cx = store.x[rob];
+        var cy = store.y[rob];
+        var dx = Math.cos(store.angle[rob]);
+        var dy = Math.sin(store.angle[rob]);
+        // robots touched by the circle anywhere on the step from a to
+        // a + step have their center at most this far from the step
+        var reach = Robot.HALF * 2;
+        var step = robotHash.cellSize();
+        var best = Double.POSITIVE_INFINITY;
+        for (double a = 0; a < Math.min(range, best); a += step) {
+            var x0 = cx + dx * a;
+            var y0 = cy + dy * a;
+            var x1 = cx + dx * (a + step);
+            var y1 = cy + dy * (a + step);
+            var cnt = robotHash.query(
+                Math.min(x0, x1) - reach,
+                Math.min(y0, y1) - reach,
+                Math.max(x0, x1) + reach,
+                Math.max(y0, y1) + reach,
+                s.found
+            );
+            for (int k = 0; k < cnt; ++k) {
+                var o = s.found.get(k);
+                if (o != rob) {
+                    best = Math.min(best, circleDistance(cx, cy, dx, dy, o));
+                }
+            }
+        }
+        return best;
     }
 
-    private boolean inRange(double val, double start, double end) {
-        return val > start && val < end;
+    /**
+     * Distance that the robot at the start of the ray can move along it
+     * before it touches the other robot. Robots that already touch it are
+     * at distance 0 and robots behind it are never hit.
+     */
+    private double circleDistance(
+        double cx,
+        double cy,
+        double dx,
+        double dy,
+        int rob
+    ) {
+        var r = Robot.HALF * 2;
+        var ox = store.x[rob] - cx;
+        var oy = store.y[rob] - cy;
+        var proj = ox * dx + oy * dy;
+        var off = r * r - (ox * ox + oy * oy - proj * proj);
+        if (proj <= 0 || off < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(0., proj - Math.sqrt(off));
     }
 }
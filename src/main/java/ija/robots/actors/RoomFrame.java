@@ -0,0 +1,166 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Positions of the robots published by the simulation for drawing.
+ */
+
+package ija.robots.actors;
+
+import java.util.Arrays;
+
+/**
+ * Positions of all the robots at two consecutive publications of the
+ * simulation. The view draws the robots between the two positions so that
+ * the motion is smooth even when the simulation runs at different rate than
+ * the drawing. Frames are reused by {@link FrameBuffer}, so a frame may be
+ * read only until the next call to {@link FrameBuffer#latest()}.
+ */
+public class RoomFrame {
+    private static final double TAU = Math.PI * 2;
+
+    long seq = 0;
+    private long nanos = 0;
+    private long prevNanos = 0;
+
+    private int count = 0;
+    private Robot[] robots = new Robot[0];
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] angle = new double[0];
+    private double[] prevX = new double[0];
+    private double[] prevY = new double[0];
+    private double[] prevAngle = new double[0];
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Gets the number of robots in the frame.
+     * @return Number of robots.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Gets the robot at the given index.
+     * @param i Index of the robot in the frame.
+     * @return The robot.
+     */
+    public Robot robot(int i) {
+        return robots[i];
+    }
+
+    /**
+     * Gets the time when the frame was published.
+     * @return Time from {@link System#nanoTime()}.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * Gets how far between the previous and the current positions the robots
+     * should be drawn at the given time. The robots are drawn one
+     * publication late, so that they are always between two known
+     * positions.
+     * @param now Current time from {@link System#nanoTime()}.
+     * @return Value from 0 (previous positions) to 1 (current positions).
+     */
+    public double alpha(long now) {
+        var span = nanos - prevNanos;
+        if (span <= 0) {
+            return 1;
+        }
+        return Math.min(1, Math.max(0, (double)(now - nanos) / span));
+    }
+
+    /**
+     * Gets the x coordinate of the center of the robot.
+     * @param i Index of the robot in the frame.
+     * @param alpha Position between the previous and current coordinate.
+     * @return The interpolated x coordinate.
+     */
+    public double x(int i, double alpha) {
+        return prevX[i] + (x[i] - prevX[i]) * alpha;
+    }
+
+    /**
+     * Gets the y coordinate of the center of the robot.
+     * @param i Index of the robot in the frame.
+     * @param alpha Position between the previous and current coordinate.
+     * @return The interpolated y coordinate.
+     */
+    public double y(int i, double alpha) {
+        return prevY[i] + (y[i] - prevY[i]) * alpha;
+    }
+
+    /**
+     * Gets the angle of the robot. The robot turns the shorter way.
+     * @param i Index of the robot in the frame.
+     * @param alpha Position between the previous and current angle.
+     * @return The interpolated angle in radians.
+     */
+    public double angle(int i, double alpha) {
+        var d = angle[i] - prevAngle[i];
+        d -= TAU * Math.rint(d / TAU);
+        return prevAngle[i] + d * alpha;
+    }
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Copies the positions of the robots into this frame.
+     * @param store Store with the robots.
+     * @param last The previously published frame or null. Its current
+     * positions become the previous positions of this frame.
+     * @param seq Sequence number of the frame.
+     * @param now Time of the publication from {@link System#nanoTime()}.
+     */
+    void capture(RobotStore store, RoomFrame last, long seq, long now) {
+        var n = store.size();
+        if (robots.length < n) {
+            var cap = Math.max(n, robots.length * 2);
+            robots = Arrays.copyOf(robots, cap);
+            x = new double[cap];
+            y = new double[cap];
+            angle = new double[cap];
+            prevX = new double[cap];
+            prevY = new double[cap];
+            prevAngle = new double[cap];
+        }
+        // don't keep removed robots alive
+        Arrays.fill(robots, n, Math.max(n, count), null);
+
+        for (int i = 0; i < n; ++i) {
+            var rob = store.owner(i);
+            robots[i] = rob;
+            x[i] = store.x[i];
+            y[i] = store.y[i];
+            angle[i] = store.angle[i];
+            if (
+                last != null
+                && i < last.count
+                && last.robots[i] == rob
+                && !store.dragging[i]
+            ) {
+                prevX[i] = last.x[i];
+                prevY[i] = last.y[i];
+                prevAngle[i] = last.angle[i];
+            } else {
+                // new and dragged robots are drawn where they are
+                prevX[i] = x[i];
+                prevY[i] = y[i];
+                prevAngle[i] = angle[i];
+            }
+        }
+
+        count = n;
+        nanos = now;
+        prevNanos = last == null ? now : last.nanos;
+        this.seq = seq;
+    }
+}
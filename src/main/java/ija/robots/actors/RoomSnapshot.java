@@ -0,0 +1,466 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Copy of the state of a room that can be saved on another thread.
+ */
+
+package ija.robots.actors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import ija.robots.common.Rect;
+import ija.robots.common.TextWriter;
+import ija.robots.common.Vec2;
+
+/**
+ * Copy of everything that is saved from a room. Creating the snapshot only
+ * copies numbers, the slow formatting of the text is done when it is
+ * written, so that may happen on another thread while the room keeps
+ * running.
+ *
+ * The snapshot can be written either in the text format or in the binary
+ * format. The binary format is little endian and starts with header:
+ * {@link #MAGIC} (8 bytes), {@link #VERSION} (int), flags (int, 0), width
+ * and height of the room (doubles), number of obstacles and number of
+ * robots (ints). Then there are the obstacles as hitbox x, y, width and
+ * height (doubles). Each robot starts with its type (int) followed by
+ * doubles: hitbox x, y, speed and angle in radians; auto and control robots
+ * add rotation speed in radians; auto robots add elide distance and elide
+ * rotation in radians.
+ */
+public class RoomSnapshot {
+    /** First 8 bytes of binary room file read as little endian long. */
+    public static final long MAGIC = 0x1a0a0d4d4f4f5289L;
+    /** Version of the binary format. */
+    public static final int VERSION = 1;
+    /** Size of the header of the binary format in bytes. */
+    public static final int HEADER_SIZE = 40;
+    /** Size of obstacle record in the binary format in bytes. */
+    public static final int OBSTACLE_SIZE = 4 * Double.BYTES;
+    /** Size of the smallest robot record in the binary format in bytes. */
+    public static final int MIN_ROBOT_SIZE = Integer.BYTES + 4 * Double.BYTES;
+    /** Type of robot record in the binary format. */
+    public static final int ROBOT = 0;
+    /** Type of auto robot record in the binary format. */
+    public static final int AUTO_ROBOT = 1;
+    /** Type of control robot record in the binary format. */
+    public static final int CONTROL_ROBOT = 2;
+    /** Files with this extension are written in the binary format. */
+    public static final String BINARY_EXTENSION = ".rbin";
+
+    /** Size of the buffer used when writing. */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Values stored for each obstacle. */
+    private static final int OBST_STRIDE = 4;
+    /** Values stored for each robot. */
+    private static final int ROB_STRIDE = 7;
+
+    private Vec2 size;
+    private int obstacleCount;
+    private double[] obstacles;
+    private int robotCount;
+    private byte[] kinds;
+    private double[] robots;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates empty snapshot that can be filled without creating any room.
+     * This is used to generate rooms that are too large to be kept as
+     * objects.
+     * @param size Size of the room written to the file.
+     */
+    public RoomSnapshot(Vec2 size) {
+        this.size = size;
+        obstacles = new double[OBST_STRIDE];
+        kinds = new byte[1];
+        robots = new double[ROB_STRIDE];
+    }
+
+    /**
+     * Gets the number of obstacles in the snapshot.
+     * @return Number of obstacles.
+     */
+    public int obstacleCount() {
+        return obstacleCount;
+    }
+
+    /**
+     * Gets the number of robots in the snapshot.
+     * @return Number of robots.
+     */
+    public int robotCount() {
+        return robotCount;
+    }
+
+    /**
+     * Gets the hitbox of obstacle in the snapshot.
+     * @param i Index of the obstacle.
+     * @return The hitbox of the obstacle.
+     */
+    public Rect obstacle(int i) {
+        var o = i * OBST_STRIDE;
+        return new Rect(
+            obstacles[o],
+            obstacles[o + 1],
+            obstacles[o + 2],
+            obstacles[o + 3]
+        );
+    }
+
+    /**
+     * Adds obstacle to the snapshot.
+     * @param x X coordinate of the top left corner of the hitbox.
+     * @param y Y coordinate of the top left corner of the hitbox.
+     * @param width Width of the obstacle.
+     * @param height Height of the obstacle.
+     */
+    public void addObstacle(double x, double y, double width, double height) {
+        if (obstacleCount * OBST_STRIDE == obstacles.length) {
+            obstacles = Arrays.copyOf(obstacles, obstacles.length * 2);
+        }
+        var o = obstacleCount++ * OBST_STRIDE;
+        obstacles[o] = x;
+        obstacles[o + 1] = y;
+        obstacles[o + 2] = width;
+        obstacles[o + 3] = height;
+    }
+
+    /**
+     * Adds simple robot to the snapshot.
+     * @param x X coordinate of the top left corner of the hitbox.
+     * @param y Y coordinate of the top left corner of the hitbox.
+     * @param speed Speed of the robot. (pixels per second)
+     * @param angle Angle the robot is facing. (radians)
+     */
+    public void addRobot(double x, double y, double speed, double angle) {
+        addRobot(RobotStore.DUMMY, x, y, speed, angle, 0, 0, 0);
+    }
+
+    /**
+     * Adds robot with basic AI to the snapshot.
+     * @param x X coordinate of the top left corner of the hitbox.
+     * @param y Y coordinate of the top left corner of the hitbox.
+     * @param speed Speed of the robot. (pixels per second)
+     * @param angle Angle the robot is facing. (radians)
+     * @param edist Elide distance. (pixels)
+     * @param erot Elide rotation. (radians)
+     * @param rspeed Rotation speed. (radians per second)
+     */
+    public void addAutoRobot(
+        double x,
+        double y,
+        double speed,
+        double angle,
+        double edist,
+        double erot,
+        double rspeed
+    ) {
+        addRobot(RobotStore.AUTO, x, y, speed, angle, rspeed, edist, erot);
+    }
+
+    /**
+     * Adds robot controlled by the user to the snapshot.
+     * @param x X coordinate of the top left corner of the hitbox.
+     * @param y Y coordinate of the top left corner of the hitbox.
+     * @param speed Speed of the robot. (pixels per second)
+     * @param angle Angle the robot is facing. (radians)
+     * @param rspeed Rotation speed. (radians per second)
+     */
+    public void addControlRobot(
+        double x,
+        double y,
+        double speed,
+        double angle,
+        double rspeed
+    ) {
+        addRobot(RobotStore.CONTROL, x, y, speed, angle, rspeed, 0, 0);
+    }
+
+    /**
+     * Writes the snapshot to the file. Files with
+     * {@link #BINARY_EXTENSION} are written in the binary format, other
+     * files in the text format.
+     * @param filename Name of the file to write into.
+     * @throws IOException when the file cannot be written.
+     */
+    public void write(String filename) throws IOException {
+        var evt = new SaveEvent();
+        evt.begin();
+        var path = Path.of(filename);
+        var out = FileChannel.open(
+            path,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        );
+        var binary = filename.endsWith(BINARY_EXTENSION);
+        if (binary) {
+            writeBinary(out);
+        } else {
+            write(out);
+        }
+
+        evt.end();
+        if (evt.shouldCommit()) {
+            evt.file = filename;
+            evt.binary = binary;
+            evt.bytes = Files.size(path);
+            evt.obstacles = obstacleCount;
+            evt.robots = robotCount;
+            evt.commit();
+        }
+    }
+
+    /**
+     * Writes the snapshot to the channel in the text format of the room. The
+     * channel is closed afterwards.
+     * @param out Channel to write into.
+     * @throws IOException when the channel cannot be written.
+     */
+    public void write(WritableByteChannel out) throws IOException {
+        try (var w = new TextWriter(out, BUFFER_SIZE)) {
+            w.write("room: ")
+                .write(Double.toString(size.width()))
+                .write('x')
+                .write(Double.toString(size.height()))
+                .write('\n');
+            for (int i = 0; i < obstacleCount; ++i) {
+                writeObstacle(w, i);
+            }
+            for (int i = 0; i < robotCount; ++i) {
+                writeRobot(w, i);
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot to the channel in the binary format. The channel
+     * is closed afterwards.
+     * @param out Channel to write into.
+     * @throws IOException when the channel cannot be written.
+     */
+    public void writeBinary(WritableByteChannel out) throws IOException {
+        var buf = ByteBuffer.allocate(BUFFER_SIZE);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        try (out) {
+            buf.putLong(MAGIC)
+                .putInt(VERSION)
+                .putInt(0)
+                .putDouble(size.width())
+                .putDouble(size.height())
+                .putInt(obstacleCount)
+                .putInt(robotCount);
+            for (int i = 0; i < obstacleCount * OBST_STRIDE; ++i) {
+                putDouble(out, buf, obstacles[i]);
+            }
+            for (int i = 0; i < robotCount; ++i) {
+                var r = i * ROB_STRIDE;
+                var cnt = 4;
+                switch (kinds[i]) {
+                    case RobotStore.AUTO:
+                        putInt(out, buf, AUTO_ROBOT);
+                        cnt = 7;
+                        break;
+                    case RobotStore.CONTROL:
+                        putInt(out, buf, CONTROL_ROBOT);
+                        cnt = 5;
+                        break;
+                    default:
+                        putInt(out, buf, ROBOT);
+                        break;
+                }
+                for (int k = 0; k < cnt; ++k) {
+                    putDouble(out, buf, robots[r + k]);
+                }
+            }
+            flush(out, buf);
+        }
+    }
+
+    /**
+     * Writes the snapshot to the file on the given executor.
+     * @param filename Name of the file to write into.
+     * @param executor Executor that writes the file.
+     * @return Future that completes when the file is written.
+     */
+    public CompletableFuture<Void> writeAsync(
+        String filename,
+        Executor executor
+    ) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(filename);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Copies the state of the room.
+     * @param room Room to copy.
+     * @param store Store with the robots of the room.
+     * @param size Size of the room written to the file.
+     */
+    RoomSnapshot(Room room, RobotStore store, Vec2 size) {
+        this.size = size;
+
+        var obsts = room.obstacles();
+        obstacleCount = obsts.size();
+        obstacles = new double[obstacleCount * OBST_STRIDE];
+        for (int i = 0; i < obstacleCount; ++i) {
+            var box = obsts.get(i).hitbox();
+            var o = i * OBST_STRIDE;
+            obstacles[o] = box.x();
+            obstacles[o + 1] = box.y();
+            obstacles[o + 2] = box.width();
+            obstacles[o + 3] = box.height();
+        }
+
+        var robs = room.robots();
+        robotCount = robs.size();
+        kinds = new byte[robotCount];
+        robots = new double[robotCount * ROB_STRIDE];
+        for (int i = 0; i < robotCount; ++i) {
+            var idx = robs.get(i).idx;
+            var r = i * ROB_STRIDE;
+            kinds[i] = store.kind[idx];
+            robots[r] = store.x[idx] - Robot.HALF;
+            robots[r + 1] = store.y[idx] - Robot.HALF;
+            robots[r + 2] = store.kind[idx] == RobotStore.DUMMY
+                ? store.speed[idx]
+                : store.sspeed[idx];
+            robots[r + 3] = store.angle[idx];
+            robots[r + 4] = store.rspeed[idx];
+            robots[r + 5] = store.edist[idx];
+            robots[r + 6] = store.erot[idx];
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void addRobot(
+        byte kind,
+        double x,
+        double y,
+        double speed,
+        double angle,
+        double rspeed,
+        double edist,
+        double erot
+    ) {
+        if (robotCount == kinds.length) {
+            kinds = Arrays.copyOf(kinds, kinds.length * 2);
+            robots = Arrays.copyOf(robots, robots.length * 2);
+        }
+        var r = robotCount * ROB_STRIDE;
+        kinds[robotCount++] = kind;
+        robots[r] = x;
+        robots[r + 1] = y;
+        robots[r + 2] = speed;
+        robots[r + 3] = angle;
+        robots[r + 4] = rspeed;
+        robots[r + 5] = edist;
+        robots[r + 6] = erot;
+    }
+
+    private static void putDouble(
+        WritableByteChannel out,
+        ByteBuffer buf,
+        double v
+    ) throws IOException {
+        if (buf.remaining() < Double.BYTES) {
+            flush(out, buf);
+        }
+        buf.putDouble(v);
+    }
+
+    private static void putInt(
+        WritableByteChannel out,
+        ByteBuffer buf,
+        int v
+    ) throws IOException {
+        if (buf.remaining() < Integer.BYTES) {
+            flush(out, buf);
+        }
+        buf.putInt(v);
+    }
+
+    private static void flush(
+        WritableByteChannel out,
+        ByteBuffer buf
+    ) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    private void writeObstacle(TextWriter w, int i) throws IOException {
+        var o = i * OBST_STRIDE;
+        w.write("obstacle: ")
+            .writeFixed(obstacles[o + 2])
+            .write('x')
+            .writeFixed(obstacles[o + 3])
+            .write(" [")
+            .writeFixed(obstacles[o])
+            .write(", ")
+            .writeFixed(obstacles[o + 1])
+            .write("]\n");
+    }
+
+    private void writeRobot(TextWriter w, int i) throws IOException {
+        var kind = kinds[i];
+        var r = i * ROB_STRIDE;
+        switch (kind) {
+            case RobotStore.AUTO:
+                w.write("auto_robot: [");
+                break;
+            case RobotStore.CONTROL:
+                w.write("control_robot: [");
+                break;
+            default:
+                w.write("robot: [");
+                break;
+        }
+        w.writeFixed(robots[r])
+            .write(", ")
+            .writeFixed(robots[r + 1])
+            .write("] { speed: ")
+            .writeFixed(robots[r + 2])
+            .write(", angle: ")
+            .writeFixed(-robots[r + 3] / Math.PI * 180);
+        if (kind != RobotStore.DUMMY) {
+            w.write(", rotation_speed: ")
+                .writeFixed(robots[r + 4] / Math.PI * 180);
+        }
+        if (kind == RobotStore.AUTO) {
+            w.write(", elide_distance: ")
+                .writeFixed(robots[r + 5])
+                .write(", elide_rotation: ")
+                .writeFixed(robots[r + 6] / Math.PI * 180);
+        }
+        w.write(" }\n");
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Counters of the work done by the simulation of a room.
+ */
+
+package ija.robots.actors;
+
+import ija.robots.common.Histogram;
+
+/**
+ * Counters collected by a room while it runs: number of ticks, time spent
+ * in each phase of the ticks and number of collisions. The counters are
+ * written only by the thread that runs the ticks, other threads must read
+ * them under the lock of the room or from a {@link #copy()}.
+ *
+ * When profiling is enabled, the duration of each phase of each tick is
+ * also recorded into a histogram. The histograms cost a few increments per
+ * tick, disabled profiling costs only the check of the flag.
+ */
+public class RoomStats {
+    private long ticks = 0;
+    private long[] nanos = new long[Phase.values().length];
+    private long robotCollisions = 0;
+    private long obstacleCollisions = 0;
+    private long rays = 0;
+
+    private boolean profiling = false;
+    private Histogram[] phaseHist = new Histogram[Phase.values().length];
+    private Histogram tickHist = new Histogram();
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new stats with all counters zero.
+     */
+    public RoomStats() {
+        for (int i = 0; i < phaseHist.length; ++i) {
+            phaseHist[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Gets the number of ticks that have run.
+     * @return Number of ticks.
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the total time spent in the phase.
+     * @param phase The phase.
+     * @return Time in nanoseconds.
+     */
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Gets the total time spent in all the phases.
+     * @return Time in nanoseconds.
+     */
+    public long totalNanos() {
+        var res = 0L;
+        for (var n : nanos) {
+            res += n;
+        }
+        return res;
+    }
+
+    /**
+     * Gets the number of pairs of robots that were pushed apart.
+     * @return Number of collisions between robots.
+     */
+    public long robotCollisions() {
+        return robotCollisions;
+    }
+
+    /**
+     * Gets the number of times a robot was pushed out of an obstacle.
+     * @return Number of collisions with obstacles.
+     */
+    public long obstacleCollisions() {
+        return obstacleCollisions;
+    }
+
+    /**
+     * Gets the number of rays cast by the sensors of the robots. Robots
+     * whose last ray is still valid don't cast new one.
+     * @return Number of rays cast.
+     */
+    public long rays() {
+        return rays;
+    }
+
+    /**
+     * Checks whether the durations of the ticks are recorded to the
+     * histograms.
+     * @return true if profiling is enabled.
+     */
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Enables or disables recording of the durations of the ticks to the
+     * histograms. Enabling clears the histograms.
+     * @param val true to enable profiling.
+     */
+    public void setProfiling(boolean val) {
+        if (val && !profiling) {
+            for (var h : phaseHist) {
+                h.reset();
+            }
+            tickHist.reset();
+        }
+        profiling = val;
+    }
+
+    /**
+     * Gets the histogram of the durations of the phase in the ticks that
+     * ran while profiling was enabled.
+     * @param phase The phase.
+     * @return Histogram of durations in nanoseconds.
+     */
+    public Histogram histogram(Phase phase) {
+        return phaseHist[phase.ordinal()];
+    }
+
+    /**
+     * Gets the histogram of the durations of the whole ticks that ran while
+     * profiling was enabled.
+     * @return Histogram of durations in nanoseconds.
+     */
+    public Histogram tickHistogram() {
+        return tickHist;
+    }
+
+    /**
+     * Copies all the counters and histograms, so that they can be read
+     * while the room keeps running.
+     * @return Copy of the counters.
+     */
+    public RoomStats copy() {
+        var res = new RoomStats();
+        res.ticks = ticks;
+        res.nanos = nanos.clone();
+        res.robotCollisions = robotCollisions;
+        res.obstacleCollisions = obstacleCollisions;
+        res.rays = rays;
+        res.profiling = profiling;
+        for (int i = 0; i < phaseHist.length; ++i) {
+            res.phaseHist[i] = new Histogram(phaseHist[i]);
+        }
+        res.tickHist = new Histogram(tickHist);
+        return res;
+    }
+
+    /**
+     * Sets all the counters to zero and clears the histograms.
+     */
+    public void reset() {
+        ticks = 0;
+        for (int i = 0; i < nanos.length; ++i) {
+            nanos[i] = 0;
+        }
+        robotCollisions = 0;
+        obstacleCollisions = 0;
+        rays = 0;
+        for (var h : phaseHist) {
+            h.reset();
+        }
+        tickHist.reset();
+    }
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Adds the time since start to the phase.
+     * @param phase The phase that has ended.
+     * @param start Time when the phase started from
+     * {@link System#nanoTime()}.
+     * @return Current time, the start of the next phase.
+     */
+    long phase(Phase phase, long start) {
+        var now = System.nanoTime();
+        nanos[phase.ordinal()] += now - start;
+        if (profiling) {
+            phaseHist[phase.ordinal()].record(now - start);
+        }
+        return now;
+    }
+
+    /**
+     * Counts finished tick.
+     * @param start Time when the tick started from
+     * {@link System#nanoTime()}.
+     * @param end Time when the last phase of the tick ended.
+     */
+    void tick(long start, long end) {
+        ++ticks;
+        if (profiling) {
+            tickHist.record(end - start);
+        }
+    }
+
+    /**
+     * Counts collisions between robots.
+     * @param cnt Number of the collisions.
+     */
+    void addRobotCollisions(long cnt) {
+        robotCollisions += cnt;
+    }
+
+    /**
+     * Counts collisions with obstacles.
+     * @param cnt Number of the collisions.
+     */
+    void addObstacleCollisions(long cnt) {
+        obstacleCollisions += cnt;
+    }
+
+    /**
+     * Counts rays cast by the sensors.
+     * @param cnt Number of the rays.
+     */
+    void addRays(long cnt) {
+        rays += cnt;
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Flight recorder event of saving a room.
+ */
+
+package ija.robots.actors;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted when a {@link RoomSnapshot} is
+ * written to a file, both by {@link Room#save} and by saving on another
+ * thread. The duration of the event is the time of writing the file.
+ */
+@Name("ija.robots.Save")
+@Label("Room Save")
+@Category({ "IJA Robots", "Files" })
+@Description("Room written to a file.")
+class SaveEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Binary")
+    @Description("The file is in the binary format.")
+    boolean binary;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Obstacles")
+    int obstacles;
+
+    @Label("Robots")
+    int robots;
+}
@@ -0,0 +1,242 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Fixed timestep scheduler of the simulation.
+ */
+
+package ija.robots.actors;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Runs ticks of fixed length so that the simulated time follows the wall
+ * time. Ticks that are due at the same time are coalesced into single batch
+ * and at most one batch is waiting for the executor at any time. When the
+ * ticks can't keep up, at most maxCatchUp ticks run in a batch and the rest
+ * is dropped so the simulation slows down instead of falling behind. The
+ * simulated time may run faster or slower than the wall time, see
+ * {@link #speed(double)}.
+ */
+public class Scheduler {
+    /** The slowest speed of the simulation. */
+    public static final double MIN_SPEED = 0.01;
+
+    private final double step;
+    private final long stepNanos;
+    private final Executor executor;
+    private final DoubleConsumer tick;
+    private volatile int maxCatchUp;
+    private volatile double speed = 1;
+
+    private ScheduledExecutorService timer = null;
+    private volatile boolean running = false;
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+    private long last;
+    private long acc;
+
+    private volatile long ticks = 0;
+    private volatile long batches = 0;
+    private volatile long dropped = 0;
+    private volatile long coalesced = 0;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new scheduler. The scheduler is paused.
+     * @param step Length of single tick in seconds.
+     * @param maxCatchUp Maximum number of ticks that run in single batch.
+     * @param executor Executor that runs the batches of ticks.
+     * @param tick Tick of the simulation, gets the tick length in seconds.
+     */
+    public Scheduler(
+        double step,
+        int maxCatchUp,
+        Executor executor,
+        DoubleConsumer tick
+    ) {
+        this.step = step;
+        stepNanos = (long)(step * 1e9);
+        this.maxCatchUp = maxCatchUp;
+        this.executor = executor;
+        this.tick = tick;
+    }
+
+    /**
+     * Play/pause the simulation. Time while paused is not simulated.
+     * @param play when true simulation is played, otherwise simulation is
+     * paused.
+     */
+    public synchronized void run(boolean play) {
+        if (play && timer == null) {
+            last = System.nanoTime();
+            acc = 0;
+            running = true;
+            timer = new ScheduledThreadPoolExecutor(1, r -> {
+                var t = new Thread(r, "sim-scheduler");
+                t.setDaemon(true);
+                return t;
+            });
+            timer.scheduleAtFixedRate(
+                this::poll,
+                0,
+                tickNanos(),
+                TimeUnit.NANOSECONDS
+            );
+        } else if (!play && timer != null) {
+            running = false;
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * Checks whether the simulation is running.
+     * @return true if the simulation is running, otherwise false.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the length of single tick.
+     * @return Length of single tick in seconds.
+     */
+    public double step() {
+        return step;
+    }
+
+    /**
+     * Gets the maximum number of ticks that run in single batch.
+     * @return Maximum number of ticks in single batch.
+     */
+    public int maxCatchUp() {
+        return maxCatchUp;
+    }
+
+    /**
+     * Sets the maximum number of ticks that run in single batch.
+     * @param val The new maximum. It must be at least 1.
+     * @return The new maximum.
+     */
+    public int maxCatchUp(int val) {
+        return maxCatchUp = Math.max(1, val);
+    }
+
+    /**
+     * Gets how many times faster the simulated time runs than the wall time.
+     * @return The speed of the simulation.
+     */
+    public double speed() {
+        return speed;
+    }
+
+    /**
+     * Sets how many times faster the simulated time runs than the wall time.
+     * The length of the ticks doesn't change, only more or less of them run
+     * each second.
+     * @param val The new speed. It must be at least {@link #MIN_SPEED}.
+     * @return The new speed.
+     */
+    public synchronized double speed(double val) {
+        speed = Math.max(MIN_SPEED, val);
+        if (timer != null) {
+            // the timer polls once for each tick
+            run(false);
+            run(true);
+        }
+        return speed;
+    }
+
+    /**
+     * Gets the number of ticks that have run.
+     * @return Number of ticks that have run.
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of batches of ticks that have run.
+     * @return Number of batches that have run.
+     */
+    public long batches() {
+        return batches;
+    }
+
+    /**
+     * Gets the number of ticks that were dropped because the simulation
+     * couldn't keep up.
+     * @return Number of dropped ticks.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Gets the number of ticks that didn't run on time but together with
+     * other ticks in single batch, because the scheduler was behind or the
+     * previous batch was still running.
+     * @return Number of coalesced ticks.
+     */
+    public long coalesced() {
+        return coalesced;
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private long tickNanos() {
+        return Math.max(1, (long)(stepNanos / speed));
+    }
+
+    private void poll() {
+        var now = System.nanoTime();
+        acc += now - last;
+        last = now;
+
+        var tickNanos = tickNanos();
+        var due = acc / tickNanos;
+        if (due == 0) {
+            return;
+        }
+
+        var max = maxCatchUp;
+        if (due > max) {
+            // don't let the debt grow while the ticks can't keep up
+            dropped += due - max;
+            acc -= (due - max) * tickNanos;
+            due = max;
+        }
+
+        // previous batch is still waiting or running, the time stays in the
+        // accumulator and the ticks are coalesced into the next batch
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+
+        acc -= due * tickNanos;
+        var cnt = (int)due;
+        executor.execute(() -> runBatch(cnt));
+    }
+
+    private void runBatch(int cnt) {
+        try {
+            for (int i = 0; i < cnt && running; ++i) {
+                tick.accept(step);
+                ++ticks;
+            }
+            ++batches;
+            coalesced += cnt - 1;
+        } finally {
+            pending.set(false);
+        }
+    }
+}
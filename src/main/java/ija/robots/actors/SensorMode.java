@@ -0,0 +1,27 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Ways of measuring the free distance in front of robots.
+ */
+
+package ija.robots.actors;
+
+/**
+ * Ways of measuring the distance from a robot to the closest obstacle in
+ * front of it.
+ */
+public enum SensorMode {
+    /**
+     * The ray is intersected with the hitboxes of the obstacles found in
+     * the bounding volume hierarchy. The distance is exact.
+     */
+    Exact,
+    /**
+     * The ray is traced over precomputed distance field of the obstacles
+     * and only the obstacles at the end of the ray are intersected. The
+     * distance is the same, but the cost depends on the free space in
+     * front of the robot and not on the number of obstacles. The field is
+     * updated when the obstacles change, which is slow for large rooms.
+     */
+    Field,
+}
@@ -13,12 +13,14 @@ import java.util.function.Consumer;
  */
 public class SimObj {
     private Consumer<SimObj> onSelect;
+    private boolean selected = false;
 
     /**
      * Select/deselect the object.
      * @param val true if the object should be selected, otherwise false.
      */
     public void setSelected(boolean val) {
+        selected = val;
         if (onSelect == null) {
             return;
         }
@@ -29,6 +31,14 @@ public class SimObj {
         }
     }
 
+    /**
+     * Checks whether the object is selected.
+     * @return true if the object is selected, otherwise false.
+     */
+    public boolean isSelected() {
+        return selected;
+    }
+
     /**
      * Sets the onSelect event that is triggered when this object is
      * selected/deselected.
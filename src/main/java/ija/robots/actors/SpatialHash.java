@@ -0,0 +1,227 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Uniform grid spatial hash used as a collision broadphase.
+ */
+
+package ija.robots.actors;
+
+import java.util.Arrays;
+
+import ija.robots.common.Rect;
+
+/**
+ * Uniform grid of square cells over the given bounds where each item is
+ * stored in the cell that contains its position. Positions outside of the
+ * bounds are clamped to the border cells. Items are identified by their
+ * index.
+ *
+ * Items are first inserted and then {@link #build()} sorts them by their
+ * cells row by row, so items that are close to each other are also close in
+ * memory and each row of cells is continuous range of the items.
+ */
+class SpatialHash {
+    /** Maximum number of cells per single item. */
+    private static final int CELLS_PER_ITEM = 4;
+
+    private double minCellSize;
+    private double cellSize;
+    private double left;
+    private double top;
+    private int cols;
+    private int rows;
+    private int count;
+    private int[] start = new int[0];
+    private int[] cells = new int[0];
+    private int[] items = new int[0];
+    private int[] itemCells = new int[0];
+
+    /**
+     * Creates new spatial hash.
+     * @param cellSize Minimum size of the side of single cell. Two items that
+     * are closer than this are always in neighbouring cells.
+     */
+    SpatialHash(double cellSize) {
+        minCellSize = cellSize;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Gets the size of the side of single cell.
+     * @return Size of the side of single cell.
+     */
+    double cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Gets the number of rows of cells.
+     * @return Number of rows of cells.
+     */
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * Removes all items and prepares the hash for the given number of items.
+     * The cells may be larger than the minimum size so that there are not
+     * too many cells for the number of items.
+     * @param bounds Area covered by the cells.
+     * @param count Maximum number of items. Item indexes must be smaller
+     * than this.
+     */
+    void clear(Rect bounds, int count) {
+        if (cells.length < count) {
+            var cap = Math.max(count, cells.length * 2);
+            cells = new int[cap];
+            items = new int[cap];
+            itemCells = new int[cap];
+        }
+        var w = Math.max(bounds.width(), 0);
+        var h = Math.max(bounds.height(), 0);
+        var maxCells = (double)Math.max(count, 1) * CELLS_PER_ITEM;
+        cellSize = Math.max(minCellSize, Math.sqrt(w * h / maxCells));
+        left = bounds.left();
+        top = bounds.top();
+        cols = Math.max(1, (int)Math.ceil(w / cellSize));
+        rows = Math.max(1, (int)Math.ceil(h / cellSize));
+        if (start.length < cols * rows + 1) {
+            start = new int[cols * rows + 1];
+        }
+        Arrays.fill(start, 0, cols * rows + 1, 0);
+        this.count = 0;
+    }
+
+    /**
+     * Inserts item into the hash. The item can be found only after
+     * {@link #build()}.
+     * @param id Index of the item.
+     * @param x X coordinate of the item.
+     * @param y Y coordinate of the item.
+     */
+    void insert(int id, double x, double y) {
+        var c = row(y) * cols + col(x);
+        cells[id] = c;
+        items[count++] = id;
+        ++start[c + 1];
+    }
+
+    /**
+     * Sorts the inserted items by their cells so that they can be queried.
+     * Items in the same cell stay in the order in which they were inserted.
+     */
+    void build() {
+        var n = cols * rows;
+        for (int c = 0; c < n; ++c) {
+            start[c + 1] += start[c];
+        }
+        // counting sort, start[c] is moved to the end of the cell
+        for (int k = 0; k < count; ++k) {
+            var id = items[k];
+            itemCells[start[cells[id]]++] = id;
+        }
+        for (int c = n; c > 0; --c) {
+            start[c] = start[c - 1];
+        }
+        start[0] = 0;
+        var tmp = items;
+        items = itemCells;
+        itemCells = tmp;
+    }
+
+    /**
+     * Gets the row of cells that contains the given item.
+     * @param id Index of the item.
+     * @return Row of the item.
+     */
+    int rowOf(int id) {
+        return cells[id] / cols;
+    }
+
+    /**
+     * Gets the position of the first item in the given row in the sorted
+     * items.
+     * @param row Row of cells, may be equal to {@link #rows()} to get the
+     * end of the last row.
+     * @return Position of the first item in the row.
+     */
+    int rowStart(int row) {
+        return start[row * cols];
+    }
+
+    /**
+     * Gets item at the given position in the sorted items.
+     * @param pos Position in the sorted items.
+     * @return Index of the item.
+     */
+    int item(int pos) {
+        return items[pos];
+    }
+
+    /**
+     * Finds all items in the cell with the given position and in the
+     * neighbouring cells. The hash may be queried from multiple threads at
+     * once as long as it is not modified.
+     * @param x X coordinate of the query.
+     * @param y Y coordinate of the query.
+     * @param res List where the found items are stored. It is cleared
+     * first.
+     * @return Number of found items.
+     */
+    int query(double x, double y, IntList res) {
+        var qx = col(x);
+        var qy = row(y);
+        var cx0 = Math.max(qx - 1, 0);
+        var cx1 = Math.min(qx + 1, cols - 1);
+        res.clear();
+        for (int cy = Math.max(qy - 1, 0); cy <= Math.min(qy + 1, rows - 1);
+            ++cy
+        ) {
+            // the neighbouring cells in one row are next to each other
+            var end = start[cy * cols + cx1 + 1];
+            for (int k = start[cy * cols + cx0]; k < end; ++k) {
+                res.add(items[k]);
+            }
+        }
+        return res.size();
+    }
+
+    /**
+     * Finds all items in the cells that overlap the given rectangle. The
+     * hash may be queried from multiple threads at once as long as it is
+     * not modified.
+     * @param l Left side of the rectangle.
+     * @param t Top side of the rectangle.
+     * @param r Right side of the rectangle.
+     * @param b Bottom side of the rectangle.
+     * @param res List where the found items are stored. It is cleared
+     * first.
+     * @return Number of found items.
+     */
+    int query(double l, double t, double r, double b, IntList res) {
+        var cx0 = col(l);
+        var cx1 = col(r);
+        res.clear();
+        for (int cy = row(t); cy <= row(b); ++cy) {
+            var end = start[cy * cols + cx1 + 1];
+            for (int k = start[cy * cols + cx0]; k < end; ++k) {
+                res.add(items[k]);
+            }
+        }
+        return res.size();
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private int col(double x) {
+        var c = (int)Math.floor((x - left) / cellSize);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private int row(double y) {
+        var r = (int)Math.floor((y - top) / cellSize);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Flight recorder event of single tick of a room.
+ */
+
+package ija.robots.actors;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for each {@link Room#tick(double)}.
+ * The duration of the event is the duration of the tick. The event has no
+ * stack trace so that it is cheap enough to stay enabled.
+ */
+@Name("ija.robots.Tick")
+@Label("Room Tick")
+@Category({ "IJA Robots", "Simulation" })
+@Description("Single tick of the simulation of a room.")
+@StackTrace(false)
+class TickEvent extends Event {
+    @Label("Step")
+    @Description("Simulated time of the tick in seconds.")
+    double step;
+
+    @Label("Robots")
+    int robots;
+
+    @Label("Obstacles")
+    int obstacles;
+
+    @Label("Robot Contacts")
+    @Description("Pairs of robots that were pushed apart.")
+    long robotContacts;
+
+    @Label("Obstacle Contacts")
+    @Description("Robots that were pushed out of an obstacle.")
+    long obstacleContacts;
+}
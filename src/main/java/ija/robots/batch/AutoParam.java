@@ -0,0 +1,41 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Parameters of auto robots that can be swept.
+ */
+
+package ija.robots.batch;
+
+import ija.robots.actors.AutoRobot;
+
+/**
+ * Parameters of auto robots that can be changed by {@link Sweep}. The
+ * values are in the units of the setters of {@link AutoRobot}.
+ */
+public enum AutoParam {
+    /** Elide distance in pixels. */
+    Edist,
+    /** Elide rotation in radians. */
+    Erot,
+    /** Rotation speed in radians per second. */
+    Rspeed;
+
+    /**
+     * Sets the parameter of the robot.
+     * @param robot The robot to change.
+     * @param val The new value of the parameter.
+     */
+    public void apply(AutoRobot robot, double val) {
+        switch (this) {
+            case Edist:
+                robot.edist(val);
+                break;
+            case Erot:
+                robot.erot(val);
+                break;
+            case Rspeed:
+                robot.rspeed(val);
+                break;
+        }
+    }
+}
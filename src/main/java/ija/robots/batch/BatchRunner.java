@@ -0,0 +1,495 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Runs simulation of a room file without any graphics.
+ */
+
+package ija.robots.batch;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ija.robots.actors.CollisionMode;
+import ija.robots.actors.Phase;
+import ija.robots.actors.Room;
+import ija.robots.actors.SensorMode;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+import ija.robots.load.Loader;
+
+/**
+ * Loads room from a file, simulates it for the given time as fast as
+ * possible and saves the final state. Nothing is drawn, so the simulation
+ * isn't limited by the rate of the screen.
+ *
+ * Usage:
+ * {@code --batch INPUT SECONDS OUTPUT [--step S] [--threads N] [--jacobi]
+ * [--field] [--simd] [--sense-robots] [--ccd] [--no-sleep]}
+ */
+public class BatchRunner {
+    /** The first argument that selects the batch mode. */
+    public static final String FLAG = "--batch";
+    /** Size of the room when the file doesn't specify it. */
+    public static final Vec2 DEFAULT_SIZE = new Vec2(900, 520);
+    /** Default length of single tick in seconds. */
+    public static final double STEP = 10. / 1000.;
+
+    private static final String USAGE =
+        "usage: " + FLAG + " INPUT SECONDS OUTPUT"
+        + " [--step S] [--threads N] [--jacobi] [--field] [--simd]"
+        + " [--sense-robots] [--ccd] [--no-sleep]";
+
+    private String input;
+    private String output;
+    private double seconds;
+    private double step = STEP;
+    private int threads = 0;
+    private CollisionMode mode = CollisionMode.Ordered;
+    private SensorMode sensorMode = SensorMode.Exact;
+    private boolean simd = false;
+    private boolean robotSensing = false;
+    private boolean continuous = false;
+    private boolean sleepAllowed = true;
+
+    private Room room = null;
+    private long wallNanos = 0;
+
+    private Logger log = Logger.getLogger("BatchRunner");
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Checks whether the arguments select the batch mode.
+     * @param args Command line arguments.
+     * @return true if the application should run in the batch mode.
+     */
+    public static boolean isBatch(String[] args) {
+        return args.length > 0 && args[0].equals(FLAG);
+    }
+
+    /**
+     * Runs the batch mode with the command line arguments and prints the
+     * statistics to the standard output. Exits with code 1 on error.
+     * @param args Command line arguments starting with {@link #FLAG}.
+     */
+    public static void main(String[] args) {
+        // logging every loaded robot would take longer than the simulation
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        BatchRunner runner;
+        try {
+            runner = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        try {
+            runner.run();
+        } catch (Exception e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        runner.printStats(System.out);
+    }
+
+    /**
+     * Creates new batch runner.
+     * @param input File with the room to simulate.
+     * @param seconds Simulated time in seconds.
+     * @param output File to save the final state into.
+     */
+    public BatchRunner(String input, double seconds, String output) {
+        this.input = input;
+        this.seconds = seconds;
+        this.output = output;
+    }
+
+    /**
+     * Gets the length of single tick.
+     * @return Length of single tick in seconds.
+     */
+    public double step() {
+        return step;
+    }
+
+    /**
+     * Sets the length of single tick.
+     * @param val Length of single tick in seconds.
+     * @return The new length of single tick.
+     */
+    public double step(double val) {
+        return step = val;
+    }
+
+    /**
+     * Gets the number of threads that run the simulation.
+     * @return Number of threads, 0 means the common pool.
+     */
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads that run the simulation.
+     * @param val Number of threads, 0 means the common pool.
+     * @return The new number of threads.
+     */
+    public int threads(int val) {
+        return threads = val;
+    }
+
+    /**
+     * Gets the way collisions between robots are resolved.
+     * @return The collision mode.
+     */
+    public CollisionMode collisionMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the way collisions between robots are resolved.
+     * @param val The new collision mode.
+     * @return The new collision mode.
+     */
+    public CollisionMode collisionMode(CollisionMode val) {
+        return mode = val;
+    }
+
+    /**
+     * Gets the way the robots measure the distance to obstacles.
+     * @return The sensor mode.
+     */
+    public SensorMode sensorMode() {
+        return sensorMode;
+    }
+
+    /**
+     * Sets the way the robots measure the distance to obstacles.
+     * @param val The new sensor mode.
+     * @return The new sensor mode.
+     */
+    public SensorMode sensorMode(SensorMode val) {
+        return sensorMode = val;
+    }
+
+    /**
+     * Checks whether the sensors of the robots should see other robots.
+     * @return true if the robots should sense other robots.
+     */
+    public boolean isRobotSensing() {
+        return robotSensing;
+    }
+
+    /**
+     * Sets whether the sensors of the robots should see other robots.
+     * @param val true if the robots should sense other robots.
+     */
+    public void setRobotSensing(boolean val) {
+        robotSensing = val;
+    }
+
+    /**
+     * Checks whether the collisions should be detected continuously.
+     * @return true if continuous collision detection should be used.
+     */
+    public boolean isContinuous() {
+        return continuous;
+    }
+
+    /**
+     * Sets whether the collisions should be detected continuously, so that
+     * long steps don't let robots pass through obstacles.
+     * @param val true to use continuous collision detection.
+     */
+    public void setContinuous(boolean val) {
+        continuous = val;
+    }
+
+    /**
+     * Checks whether robots that don't move may fall asleep.
+     * @return true if robots may sleep.
+     */
+    public boolean isSleepAllowed() {
+        return sleepAllowed;
+    }
+
+    /**
+     * Sets whether robots that don't move may fall asleep.
+     * @param val true if robots may sleep.
+     */
+    public void setSleepAllowed(boolean val) {
+        sleepAllowed = val;
+    }
+
+    /**
+     * Checks whether the rays of the sensors should be cast with SIMD
+     * instructions.
+     * @return true if SIMD should be used.
+     */
+    public boolean isSimd() {
+        return simd;
+    }
+
+    /**
+     * Sets whether the rays of the sensors should be cast with SIMD
+     * instructions. It works only if the program runs with
+     * {@code --add-modules jdk.incubator.vector}.
+     * @param val true to use SIMD.
+     */
+    public void setSimd(boolean val) {
+        simd = val;
+    }
+
+    /**
+     * Loads the room, simulates it and saves the final state.
+     * @return The simulated room.
+     * @throws Exception when the room cannot be loaded or saved.
+     */
+    public Room run() throws Exception {
+        room = loadRoom(input);
+        room.collisionMode(mode);
+        room.sensorMode(sensorMode);
+        room.setRobotSensing(robotSensing);
+        room.setContinuous(continuous);
+        room.setSleepAllowed(sleepAllowed);
+        room.setSimd(simd);
+        if (simd && !room.isSimd()) {
+            log.warning(
+                "SIMD is not available, build with -Psimd and run with"
+                + " --add-modules jdk.incubator.vector."
+            );
+        }
+
+        ForkJoinPool pool = null;
+        if (threads == 0) {
+            pool = ForkJoinPool.commonPool();
+        } else if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+        }
+        room.pool(pool);
+
+        var ticks = (long)Math.ceil(seconds / step - 1e-9);
+        log.info("Simulating " + ticks + " ticks of '" + input + "'.");
+        try {
+            var start = System.nanoTime();
+            for (long i = 0; i < ticks; ++i) {
+                room.tick(step);
+            }
+            wallNanos = System.nanoTime() - start;
+        } finally {
+            if (threads > 1) {
+                pool.shutdown();
+            }
+        }
+
+        var b = room.bounds();
+        room.save(output, new Vec2(b.width(), b.height()));
+        return room;
+    }
+
+    /**
+     * Prints statistics of the last run.
+     * @param out Stream to print to.
+     */
+    public void printStats(PrintStream out) {
+        var stats = room.stats();
+        var wall = wallNanos / 1e9;
+        var total = Math.max(1, stats.totalNanos());
+        out.printf(Locale.ROOT, "robots: %d%n", room.robots().size());
+        out.printf(Locale.ROOT, "obstacles: %d%n", room.obstacles().size());
+        out.printf(Locale.ROOT, "ticks: %d%n", stats.ticks());
+        out.printf(
+            Locale.ROOT,
+            "simulated: %f s%n",
+            stats.ticks() * step
+        );
+        out.printf(Locale.ROOT, "wall: %f s%n", wall);
+        out.printf(
+            Locale.ROOT,
+            "ticks/sec: %f%n",
+            wall == 0 ? 0 : stats.ticks() / wall
+        );
+        out.printf(
+            Locale.ROOT,
+            "robot collisions: %d%n",
+            stats.robotCollisions()
+        );
+        out.printf(
+            Locale.ROOT,
+            "obstacle collisions: %d%n",
+            stats.obstacleCollisions()
+        );
+        out.printf(Locale.ROOT, "sensor rays: %d%n", stats.rays());
+        out.printf(
+            Locale.ROOT,
+            "sleeping robots: %d%n",
+            room.sleepingRobots()
+        );
+        for (var phase : Phase.values()) {
+            var nanos = stats.nanos(phase);
+            out.printf(
+                Locale.ROOT,
+                "phase %s: %f ms (%.1f %%)%n",
+                phase.name().toLowerCase(Locale.ROOT),
+                nanos / 1e6,
+                nanos * 100. / total
+            );
+        }
+    }
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Loads room from the file. The room has the size from the file or
+     * {@link #DEFAULT_SIZE}.
+     * @param input File with the room.
+     * @return The loaded room.
+     * @throws Exception when the room cannot be loaded.
+     */
+    static Room loadRoom(String input) throws Exception {
+        var room = new Room(
+            new Rect(0, 0, DEFAULT_SIZE.width(), DEFAULT_SIZE.height())
+        );
+        var size = new Loader(input).load(room);
+        if (size != null) {
+            room.resize(new Rect(0, 0, size.width(), size.height()));
+        }
+        return room;
+    }
+
+    /**
+     * Parses number from command line argument.
+     * @param s The argument.
+     * @param name Name of the argument used in the error message.
+     * @return The parsed number.
+     * @throws IllegalArgumentException when the argument is not a number.
+     */
+    static double parseDouble(String s, String name) {
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                "Invalid number '" + s + "' for " + name + "."
+            );
+        }
+    }
+
+    /**
+     * Parses integer from command line argument.
+     * @param s The argument.
+     * @param name Name of the argument used in the error message.
+     * @return The parsed integer.
+     * @throws IllegalArgumentException when the argument is not an integer.
+     */
+    static int parseInt(String s, String name) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                "Invalid number '" + s + "' for " + name + "."
+            );
+        }
+    }
+
+    /**
+     * Parses long integer from command line argument.
+     * @param s The argument.
+     * @param name Name of the argument used in the error message.
+     * @return The parsed integer.
+     * @throws IllegalArgumentException when the argument is not an integer.
+     */
+    static long parseLong(String s, String name) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                "Invalid number '" + s + "' for " + name + "."
+            );
+        }
+    }
+
+    /**
+     * Gets value of command line option.
+     * @param args Command line arguments.
+     * @param i Index of the value.
+     * @return The value.
+     * @throws IllegalArgumentException when the value is missing.
+     */
+    static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(
+                "Missing value of '" + args[i - 1] + "'."
+            );
+        }
+        return args[i];
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private static BatchRunner parse(String[] args) {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Missing arguments.");
+        }
+        var res = new BatchRunner(
+            args[1],
+            parseDouble(args[2], "SECONDS"),
+            args[3]
+        );
+
+        for (int i = 4; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--step":
+                    res.step(parseDouble(value(args, ++i), "--step"));
+                    break;
+                case "--threads":
+                    res.threads(parseInt(value(args, ++i), "--threads"));
+                    break;
+                case "--jacobi":
+                    res.collisionMode(CollisionMode.Jacobi);
+                    break;
+                case "--field":
+                    res.sensorMode(SensorMode.Field);
+                    break;
+                case "--simd":
+                    res.setSimd(true);
+                    break;
+                case "--sense-robots":
+                    res.setRobotSensing(true);
+                    break;
+                case "--ccd":
+                    res.setContinuous(true);
+                    break;
+                case "--no-sleep":
+                    res.setSleepAllowed(false);
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                        "Unknown argument '" + args[i] + "'."
+                    );
+            }
+        }
+
+        if (!(res.step > 0)) {
+            throw new IllegalArgumentException("--step must be positive.");
+        }
+        if (res.threads < 0) {
+            throw new IllegalArgumentException(
+                "--threads must not be negative."
+            );
+        }
+        return res;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Tracks how much of a room was visited by the robots.
+ */
+
+package ija.robots.batch;
+
+import java.util.BitSet;
+
+import ija.robots.actors.Room;
+import ija.robots.common.Rect;
+
+/**
+ * Grid over a room that remembers which of its cells were visited by the
+ * center of any robot.
+ */
+class Coverage {
+    private Rect bounds;
+    private double cellSize;
+    private int cols;
+    private int rows;
+    private BitSet visited;
+
+    /**
+     * Creates new grid with no visited cells.
+     * @param bounds Bounds of the room.
+     * @param cellSize Size of single cell.
+     */
+    Coverage(Rect bounds, double cellSize) {
+        this.bounds = bounds;
+        this.cellSize = cellSize;
+        cols = Math.max(1, (int)Math.ceil(bounds.width() / cellSize));
+        rows = Math.max(1, (int)Math.ceil(bounds.height() / cellSize));
+        visited = new BitSet(cols * rows);
+    }
+
+    /**
+     * Marks the cells with robots as visited.
+     * @param room The room with the robots.
+     */
+    void visit(Room room) {
+        for (var rob : room.robots()) {
+            var c = rob.center();
+            var col = (int)((c.x() - bounds.x()) / cellSize);
+            var row = (int)((c.y() - bounds.y()) / cellSize);
+            col = Math.max(0, Math.min(cols - 1, col));
+            row = Math.max(0, Math.min(rows - 1, row));
+            visited.set(row * cols + col);
+        }
+    }
+
+    /**
+     * Gets the part of the room that was visited.
+     * @return Visited cells divided by all cells, from 0 to 1.
+     */
+    double fraction() {
+        return visited.cardinality() / (double)(cols * rows);
+    }
+}
@@ -0,0 +1,571 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Generates large rooms for load tests.
+ */
+
+package ija.robots.batch;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import ija.robots.actors.Robot;
+import ija.robots.actors.RoomSnapshot;
+import ija.robots.common.Vec2;
+
+/**
+ * Generates room with the given number of obstacles and robots. The same
+ * seed always gives the same room. Robots never overlap obstacles or each
+ * other: each robot is placed into its own slot of a grid and slots that
+ * touch any obstacle are skipped. The room is built directly as
+ * {@link RoomSnapshot} so it may have millions of objects.
+ *
+ * Usage:
+ * {@code --generate OUTPUT [--seed N] [--layout random|maze|grid]
+ * [--robots N] [--auto N] [--control N] [--obstacles N] [--width W]
+ * [--height H]}
+ */
+public class Generator {
+    /** The first argument that selects the generator. */
+    public static final String FLAG = "--generate";
+
+    private static final String USAGE =
+        "usage: " + FLAG + " OUTPUT [--seed N] [--layout random|maze|grid]"
+        + " [--robots N] [--auto N] [--control N] [--obstacles N]"
+        + " [--width W] [--height H]";
+
+    /** Size of the hitbox of robot. */
+    private static final double ROBOT_SIZE =
+        Robot.RADIUS * 2 + Robot.BORDER_THICKNESS;
+    /** Size of the slot for single robot, the rest is random offset. */
+    private static final double SLOT = 64;
+    /** Area of the generated room per object when the size isn't given. */
+    private static final double AREA_PER_OBJECT = 150 * 150;
+    private static final double MIN_OBSTACLE = 20;
+    private static final double MAX_OBSTACLE = 120;
+    private static final double MAZE_CELL = 200;
+    private static final double MAZE_WALL = 20;
+    /** Speed of the generated robots. (pixels per second) */
+    private static final double SPEED = 50;
+
+    private long seed;
+    private Layout layout = Layout.Random;
+    private int robots = 100;
+    private int autoRobots = 0;
+    private int controlRobots = 0;
+    private int obstacles = 20;
+    private Vec2 size = null;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Checks whether the arguments select the generator.
+     * @param args Command line arguments.
+     * @return true if the application should generate room.
+     */
+    public static boolean isGenerate(String[] args) {
+        return args.length > 0 && args[0].equals(FLAG);
+    }
+
+    /**
+     * Generates room with the command line arguments and writes it to the
+     * output file. Exits with code 1 on error.
+     * @param args Command line arguments starting with {@link #FLAG}.
+     */
+    public static void main(String[] args) {
+        Generator gen;
+        String output;
+        try {
+            if (args.length < 2) {
+                throw new IllegalArgumentException("Missing arguments.");
+            }
+            output = args[1];
+            gen = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        try {
+            var room = gen.generate();
+            room.write(output);
+            System.out.printf(
+                Locale.ROOT,
+                "generated %d obstacles and %d robots%n",
+                room.obstacleCount(),
+                room.robotCount()
+            );
+        } catch (Exception e) {
+            System.err.println("Generating failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates new generator.
+     * @param seed Seed of the random numbers.
+     */
+    public Generator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the way obstacles are placed.
+     * @return The layout of the obstacles.
+     */
+    public Layout layout() {
+        return layout;
+    }
+
+    /**
+     * Sets the way obstacles are placed.
+     * @param val The new layout of the obstacles.
+     * @return The new layout of the obstacles.
+     */
+    public Layout layout(Layout val) {
+        return layout = val;
+    }
+
+    /**
+     * Gets the number of simple robots.
+     * @return Number of simple robots.
+     */
+    public int robots() {
+        return robots;
+    }
+
+    /**
+     * Sets the number of simple robots.
+     * @param val The new number of simple robots.
+     * @return The new number of simple robots.
+     */
+    public int robots(int val) {
+        return robots = checkCount(val, "--robots");
+    }
+
+    /**
+     * Gets the number of robots with basic AI.
+     * @return Number of auto robots.
+     */
+    public int autoRobots() {
+        return autoRobots;
+    }
+
+    /**
+     * Sets the number of robots with basic AI.
+     * @param val The new number of auto robots.
+     * @return The new number of auto robots.
+     */
+    public int autoRobots(int val) {
+        return autoRobots = checkCount(val, "--auto");
+    }
+
+    /**
+     * Gets the number of robots controlled by the user.
+     * @return Number of control robots.
+     */
+    public int controlRobots() {
+        return controlRobots;
+    }
+
+    /**
+     * Sets the number of robots controlled by the user.
+     * @param val The new number of control robots.
+     * @return The new number of control robots.
+     */
+    public int controlRobots(int val) {
+        return controlRobots = checkCount(val, "--control");
+    }
+
+    /**
+     * Gets the number of obstacles. It is not used by {@link Layout#Maze}.
+     * @return Number of obstacles.
+     */
+    public int obstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Sets the number of obstacles. It is not used by {@link Layout#Maze}.
+     * @param val The new number of obstacles.
+     * @return The new number of obstacles.
+     */
+    public int obstacles(int val) {
+        return obstacles = checkCount(val, "--obstacles");
+    }
+
+    /**
+     * Gets the size of the room.
+     * @return Size of the room or null if it is computed from the number of
+     * objects.
+     */
+    public Vec2 size() {
+        return size;
+    }
+
+    /**
+     * Sets the size of the room.
+     * @param val Size of the room or null if it should be computed from the
+     * number of objects.
+     * @return The new size of the room.
+     */
+    public Vec2 size(Vec2 val) {
+        return size = val;
+    }
+
+    /**
+     * Generates the room.
+     * @return The generated room.
+     * @throws IllegalArgumentException when the robots don't fit into the
+     * room.
+     */
+    public RoomSnapshot generate() {
+        var rand = new SplittableRandom(seed);
+        var rsize = roomSize();
+        var room = new RoomSnapshot(rsize);
+
+        switch (layout) {
+            case Random:
+                randomObstacles(room, rand, rsize);
+                break;
+            case Maze:
+                mazeObstacles(room, rand, rsize);
+                break;
+            case Grid:
+                gridObstacles(room, rsize);
+                break;
+        }
+
+        placeRobots(room, rand, rsize);
+        return room;
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private static Generator parse(String[] args) {
+        var res = new Generator(1);
+        double width = 0, height = 0;
+        for (int i = 2; i < args.length; ++i) {
+            var arg = args[i];
+            switch (arg) {
+                case "--seed":
+                    res.seed = BatchRunner.parseLong(
+                        BatchRunner.value(args, ++i),
+                        arg
+                    );
+                    break;
+                case "--layout":
+                    res.layout(parseLayout(BatchRunner.value(args, ++i)));
+                    break;
+                case "--robots":
+                    res.robots(parseCount(args, ++i));
+                    break;
+                case "--auto":
+                    res.autoRobots(parseCount(args, ++i));
+                    break;
+                case "--control":
+                    res.controlRobots(parseCount(args, ++i));
+                    break;
+                case "--obstacles":
+                    res.obstacles(parseCount(args, ++i));
+                    break;
+                case "--width":
+                    width = BatchRunner.parseDouble(
+                        BatchRunner.value(args, ++i),
+                        arg
+                    );
+                    break;
+                case "--height":
+                    height = BatchRunner.parseDouble(
+                        BatchRunner.value(args, ++i),
+                        arg
+                    );
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                        "Unknown argument '" + arg + "'."
+                    );
+            }
+        }
+
+        if ((width == 0) != (height == 0)) {
+            throw new IllegalArgumentException(
+                "--width and --height must be given together."
+            );
+        }
+        if (width != 0) {
+            if (!(width >= SLOT && height >= SLOT)) {
+                throw new IllegalArgumentException(
+                    "The room must be at least " + SLOT + " pixels large."
+                );
+            }
+            res.size(new Vec2(width, height));
+        }
+        return res;
+    }
+
+    private static Layout parseLayout(String s) {
+        for (var l : Layout.values()) {
+            if (l.name().equalsIgnoreCase(s)) {
+                return l;
+            }
+        }
+        throw new IllegalArgumentException("Unknown layout '" + s + "'.");
+    }
+
+    private static int parseCount(String[] args, int i) {
+        return BatchRunner.parseInt(BatchRunner.value(args, i), args[i - 1]);
+    }
+
+    private static int checkCount(int val, String name) {
+        if (val < 0) {
+            throw new IllegalArgumentException(
+                name + " must not be negative."
+            );
+        }
+        return val;
+    }
+
+    private int robotCount() {
+        return robots + autoRobots + controlRobots;
+    }
+
+    private Vec2 roomSize() {
+        if (size != null) {
+            return size;
+        }
+        var cnt = (double)robotCount();
+        if (layout != Layout.Maze) {
+            cnt += obstacles;
+        }
+        var side = Math.ceil(Math.sqrt(cnt * AREA_PER_OBJECT));
+        return new Vec2(
+            Math.max(BatchRunner.DEFAULT_SIZE.width(), side),
+            Math.max(BatchRunner.DEFAULT_SIZE.height(), side)
+        );
+    }
+
+    private void randomObstacles(
+        RoomSnapshot room,
+        SplittableRandom rand,
+        Vec2 rsize
+    ) {
+        for (int i = 0; i < obstacles; ++i) {
+            var w = Math.min(
+                rsize.width(),
+                rand.nextDouble(MIN_OBSTACLE, MAX_OBSTACLE)
+            );
+            var h = Math.min(
+                rsize.height(),
+                rand.nextDouble(MIN_OBSTACLE, MAX_OBSTACLE)
+            );
+            var x = rand.nextDouble() * (rsize.width() - w);
+            var y = rand.nextDouble() * (rsize.height() - h);
+            room.addObstacle(x, y, w, h);
+        }
+    }
+
+    private void gridObstacles(RoomSnapshot room, Vec2 rsize) {
+        if (obstacles == 0) {
+            return;
+        }
+        var cols = (int)Math.ceil(
+            Math.sqrt(obstacles * rsize.width() / rsize.height())
+        );
+        var rows = (obstacles + cols - 1) / cols;
+        var pw = rsize.width() / cols;
+        var ph = rsize.height() / rows;
+        var side = Math.min(MAX_OBSTACLE, Math.min(pw, ph) / 2);
+        for (int i = 0; i < obstacles; ++i) {
+            var x = (i % cols) * pw + (pw - side) / 2;
+            var y = (i / cols) * ph + (ph - side) / 2;
+            room.addObstacle(x, y, side, side);
+        }
+    }
+
+    /**
+     * Generates maze with randomized depth first search over cells. Walls
+     * between cells that the search hasn't passed through become obstacles.
+     */
+    private void mazeObstacles(
+        RoomSnapshot room,
+        SplittableRandom rand,
+        Vec2 rsize
+    ) {
+        var cols = Math.max(1, (int)(rsize.width() / MAZE_CELL));
+        var rows = Math.max(1, (int)(rsize.height() / MAZE_CELL));
+        var cells = checkedArea(cols, rows);
+
+        var visited = new BitSet(cells);
+        // open passage to the cell on the right and to the cell below
+        var east = new BitSet(cells);
+        var south = new BitSet(cells);
+        var stack = new int[cells];
+        var next = new int[4];
+        var sp = 0;
+        stack[sp++] = 0;
+        visited.set(0);
+        while (sp != 0) {
+            var cur = stack[sp - 1];
+            var c = cur % cols;
+            var r = cur / cols;
+            var cnt = 0;
+            if (c > 0 && !visited.get(cur - 1)) {
+                next[cnt++] = cur - 1;
+            }
+            if (c + 1 < cols && !visited.get(cur + 1)) {
+                next[cnt++] = cur + 1;
+            }
+            if (r > 0 && !visited.get(cur - cols)) {
+                next[cnt++] = cur - cols;
+            }
+            if (r + 1 < rows && !visited.get(cur + cols)) {
+                next[cnt++] = cur + cols;
+            }
+            if (cnt == 0) {
+                --sp;
+                continue;
+            }
+
+            var n = next[rand.nextInt(cnt)];
+            if (n == cur + 1) {
+                east.set(cur);
+            } else if (n == cur - 1) {
+                east.set(n);
+            } else if (n == cur + cols) {
+                south.set(cur);
+            } else {
+                south.set(n);
+            }
+            visited.set(n);
+            stack[sp++] = n;
+        }
+
+        var half = MAZE_WALL / 2;
+        for (int i = 0; i < cells; ++i) {
+            var c = i % cols;
+            var r = i / cols;
+            if (c + 1 < cols && !east.get(i)) {
+                var x = (c + 1) * MAZE_CELL - half;
+                var y = Math.max(0, r * MAZE_CELL - half);
+                var b = Math.min(rsize.height(), (r + 1) * MAZE_CELL + half);
+                room.addObstacle(x, y, MAZE_WALL, b - y);
+            }
+            if (r + 1 < rows && !south.get(i)) {
+                var x = Math.max(0, c * MAZE_CELL - half);
+                var y = (r + 1) * MAZE_CELL - half;
+                var e = Math.min(rsize.width(), (c + 1) * MAZE_CELL + half);
+                room.addObstacle(x, y, e - x, MAZE_WALL);
+            }
+        }
+    }
+
+    /**
+     * Places the robots into random free slots. When there are many free
+     * slots compared to the robots, the slots are picked by retrying random
+     * slots, so the memory doesn't depend on the size of the room.
+     */
+    private void placeRobots(
+        RoomSnapshot room,
+        SplittableRandom rand,
+        Vec2 rsize
+    ) {
+        var total = robotCount();
+        if (total == 0) {
+            return;
+        }
+        var cols = (int)(rsize.width() / SLOT);
+        var rows = (int)(rsize.height() / SLOT);
+        var slots = checkedArea(cols, rows);
+
+        var taken = blockedSlots(room, cols, rows);
+        var free = slots - taken.cardinality();
+        if (free < total) {
+            throw new IllegalArgumentException(
+                "Only " + free + " robots fit into the room, "
+                + total + " requested."
+            );
+        }
+
+        if ((long)total * 2 <= free) {
+            for (int i = 0; i < total; ++i) {
+                int s;
+                do {
+                    s = rand.nextInt(slots);
+                } while (taken.get(s));
+                taken.set(s);
+                addRobot(room, rand, i, s % cols, s / cols);
+            }
+            return;
+        }
+
+        var list = new int[free];
+        for (int s = taken.nextClearBit(0), i = 0; i < free; ++i) {
+            list[i] = s;
+            s = taken.nextClearBit(s + 1);
+        }
+        for (int i = 0; i < total; ++i) {
+            var j = i + rand.nextInt(free - i);
+            var s = list[j];
+            list[j] = list[i];
+            addRobot(room, rand, i, s % cols, s / cols);
+        }
+    }
+
+    /** Marks every slot that touches any obstacle. */
+    private static BitSet blockedSlots(RoomSnapshot room, int cols, int rows) {
+        var res = new BitSet(cols * rows);
+        for (int i = 0; i < room.obstacleCount(); ++i) {
+            var box = room.obstacle(i);
+            var c0 = Math.max(0, (int)Math.floor(box.left() / SLOT));
+            var r0 = Math.max(0, (int)Math.floor(box.top() / SLOT));
+            var c1 = Math.min(cols - 1, (int)Math.floor(box.right() / SLOT));
+            var r1 = Math.min(rows - 1, (int)Math.floor(box.bottom() / SLOT));
+            for (int r = r0; c0 <= c1 && r <= r1; ++r) {
+                res.set(r * cols + c0, r * cols + c1 + 1);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Adds the i-th robot to the slot. The first robots are simple, then
+     * auto robots and then control robots, but their slots are random so
+     * the kinds are mixed in the room.
+     */
+    private void addRobot(
+        RoomSnapshot room,
+        SplittableRandom rand,
+        int i,
+        int col,
+        int row
+    ) {
+        var x = col * SLOT + rand.nextDouble() * (SLOT - ROBOT_SIZE);
+        var y = row * SLOT + rand.nextDouble() * (SLOT - ROBOT_SIZE);
+        var angle = rand.nextDouble() * 2 * Math.PI;
+        if (i < robots) {
+            room.addRobot(x, y, SPEED, angle);
+        } else if (i < robots + autoRobots) {
+            room.addAutoRobot(
+                x, y, SPEED, angle, 20, Math.PI / Math.E, Math.PI / 4
+            );
+        } else {
+            room.addControlRobot(x, y, SPEED, angle, Math.PI / 4);
+        }
+    }
+
+    private static int checkedArea(int cols, int rows) {
+        var res = (long)cols * rows;
+        if (res > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The room is too large.");
+        }
+        return (int)res;
+    }
+}
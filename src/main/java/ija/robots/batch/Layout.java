@@ -0,0 +1,22 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Ways of placing obstacles in a generated room.
+ */
+
+package ija.robots.batch;
+
+/**
+ * Ways of placing obstacles in a room created by {@link Generator}.
+ */
+public enum Layout {
+    /** Obstacles of random sizes at random positions. They may overlap. */
+    Random,
+    /**
+     * Walls of a maze with a single path between any two cells. The number
+     * of obstacles is given by the size of the room.
+     */
+    Maze,
+    /** Square pillars in regular rows and columns. */
+    Grid,
+}
@@ -0,0 +1,356 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Simulates many rooms with different parameters in parallel.
+ */
+
+package ija.robots.batch;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ija.robots.actors.AutoRobot;
+import ija.robots.actors.Robot;
+import ija.robots.common.TextWriter;
+
+/**
+ * Parameter sweep over the auto robots of a scenario. Each combination of
+ * the parameter values is simulated in its own room. The rooms share
+ * nothing except the scenario file, so they run in parallel on the given
+ * executor and each room runs on single thread.
+ *
+ * Usage:
+ * {@code --sweep INPUT SECONDS OUTPUT [--edist A,B,..] [--erot A,B,..]
+ * [--rspeed A,B,..] [--step S] [--threads N]}
+ */
+public class Sweep {
+    /** The first argument that selects the sweep mode. */
+    public static final String FLAG = "--sweep";
+
+    private static final String USAGE =
+        "usage: " + FLAG + " INPUT SECONDS OUTPUT [--edist A,B,..]"
+        + " [--erot A,B,..] [--rspeed A,B,..] [--step S] [--threads N]";
+    /** Values of parameter that is kept from the scenario. */
+    private static final double[] KEEP = { Double.NaN };
+
+    private String scenario;
+    private double seconds;
+    private double step = BatchRunner.STEP;
+    private double[][] values = new double[AutoParam.values().length][];
+
+    private Logger log = Logger.getLogger("Sweep");
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Checks whether the arguments select the sweep mode.
+     * @param args Command line arguments.
+     * @return true if the application should run the sweep.
+     */
+    public static boolean isSweep(String[] args) {
+        return args.length > 0 && args[0].equals(FLAG);
+    }
+
+    /**
+     * Runs the sweep with the command line arguments and writes the results
+     * as CSV. Exits with code 1 on error.
+     * @param args Command line arguments starting with {@link #FLAG}.
+     */
+    public static void main(String[] args) {
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        Sweep sweep;
+        String output;
+        int threads;
+        try {
+            if (args.length < 4) {
+                throw new IllegalArgumentException("Missing arguments.");
+            }
+            sweep = new Sweep(
+                args[1],
+                BatchRunner.parseDouble(args[2], "SECONDS")
+            );
+            output = args[3];
+            threads = Runtime.getRuntime().availableProcessors();
+            for (int i = 4; i < args.length; ++i) {
+                var arg = args[i];
+                switch (arg) {
+                    case "--edist":
+                    case "--erot":
+                    case "--rspeed":
+                        var param = AutoParam.valueOf(
+                            Character.toUpperCase(arg.charAt(2))
+                                + arg.substring(3)
+                        );
+                        sweep.values(
+                            param,
+                            parseList(BatchRunner.value(args, ++i), arg)
+                        );
+                        break;
+                    case "--step":
+                        sweep.step(BatchRunner.parseDouble(
+                            BatchRunner.value(args, ++i),
+                            arg
+                        ));
+                        break;
+                    case "--threads":
+                        threads = BatchRunner.parseInt(
+                            BatchRunner.value(args, ++i),
+                            arg
+                        );
+                        break;
+                    default:
+                        throw new IllegalArgumentException(
+                            "Unknown argument '" + arg + "'."
+                        );
+                }
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException(
+                    "--threads must be positive."
+                );
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        var pool = new ForkJoinPool(threads);
+        try {
+            writeCsv(output, sweep.run(pool));
+        } catch (Exception e) {
+            System.err.println("Sweep failed: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Creates new sweep. All parameters are kept from the scenario until
+     * their values are set.
+     * @param scenario File with the base room.
+     * @param seconds Simulated time of each room in seconds.
+     */
+    public Sweep(String scenario, double seconds) {
+        this.scenario = scenario;
+        this.seconds = seconds;
+    }
+
+    /**
+     * Gets the length of single tick.
+     * @return Length of single tick in seconds.
+     */
+    public double step() {
+        return step;
+    }
+
+    /**
+     * Sets the length of single tick.
+     * @param val Length of single tick in seconds. It must be positive.
+     * @return The new length of single tick.
+     */
+    public double step(double val) {
+        if (!(val > 0)) {
+            throw new IllegalArgumentException("--step must be positive.");
+        }
+        return step = val;
+    }
+
+    /**
+     * Gets the values of the parameter.
+     * @param param The parameter.
+     * @return The values or null if the parameter is kept from the
+     * scenario.
+     */
+    public double[] values(AutoParam param) {
+        return values[param.ordinal()];
+    }
+
+    /**
+     * Sets the values of the parameter. Every combination of the values of
+     * all the parameters is simulated.
+     * @param param The parameter.
+     * @param vals The values or null if the parameter should be kept from
+     * the scenario.
+     * @return The new values.
+     */
+    public double[] values(AutoParam param, double... vals) {
+        if (vals != null && vals.length == 0) {
+            vals = null;
+        }
+        return values[param.ordinal()] = vals;
+    }
+
+    /**
+     * Gets the number of rooms that will be simulated.
+     * @return Number of combinations of the parameter values.
+     */
+    public int size() {
+        var res = 1;
+        for (var p : AutoParam.values()) {
+            res *= axis(p).length;
+        }
+        return res;
+    }
+
+    /**
+     * Simulates all the combinations of the parameters and waits for the
+     * results.
+     * @param executor Executor that runs the rooms.
+     * @return Results in the order of the combinations, the last parameter
+     * changes the fastest.
+     * @throws Exception when any of the rooms fails.
+     */
+    public List<SweepResult> run(ExecutorService executor) throws Exception {
+        var cnt = size();
+        log.info("Sweeping " + cnt + " combinations of '" + scenario + "'.");
+
+        var tasks = new ArrayList<Callable<SweepResult>>(cnt);
+        for (int i = 0; i < cnt; ++i) {
+            var params = combination(i);
+            tasks.add(() -> simulate(params));
+        }
+
+        var res = new ArrayList<SweepResult>(cnt);
+        try {
+            for (var f : executor.invokeAll(tasks)) {
+                res.add(f.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception ex) {
+                throw ex;
+            }
+            throw e;
+        }
+        return res;
+    }
+
+    /**
+     * Writes the results as CSV with header. Parameters that were kept from
+     * the scenario are empty.
+     * @param filename File to write to.
+     * @param results The results to write.
+     * @throws IOException when the file cannot be written.
+     */
+    public static void writeCsv(
+        String filename,
+        List<SweepResult> results
+    ) throws IOException {
+        var out = FileChannel.open(
+            Path.of(filename),
+            StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        );
+        try (var w = new TextWriter(out, 1 << 16)) {
+            for (var p : AutoParam.values()) {
+                w.write(p.name().toLowerCase(Locale.ROOT)).write(',');
+            }
+            w.write("ticks,robot_collisions,obstacle_collisions,coverage,")
+                .write("wall_ms\n");
+
+            for (var r : results) {
+                for (var p : AutoParam.values()) {
+                    var v = r.param(p);
+                    if (!Double.isNaN(v)) {
+                        w.writeFixed(v);
+                    }
+                    w.write(',');
+                }
+                w.write(Long.toString(r.ticks()))
+                    .write(',')
+                    .write(Long.toString(r.robotCollisions()))
+                    .write(',')
+                    .write(Long.toString(r.obstacleCollisions()))
+                    .write(',')
+                    .writeFixed(r.coverage())
+                    .write(',')
+                    .writeFixed(r.wallNanos() / 1e6)
+                    .write('\n');
+            }
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private double[] axis(AutoParam param) {
+        var vals = values[param.ordinal()];
+        return vals == null ? KEEP : vals;
+    }
+
+    private double[] combination(int idx) {
+        var params = AutoParam.values();
+        var res = new double[params.length];
+        for (int p = params.length - 1; p >= 0; --p) {
+            var axis = axis(params[p]);
+            res[p] = axis[idx % axis.length];
+            idx /= axis.length;
+        }
+        return res;
+    }
+
+    private SweepResult simulate(double[] params) throws Exception {
+        var room = BatchRunner.loadRoom(scenario);
+        // the rooms are the parallel units
+        room.pool(null);
+
+        for (var rob : room.robots()) {
+            if (!(rob instanceof AutoRobot ar)) {
+                continue;
+            }
+            for (var p : AutoParam.values()) {
+                var v = params[p.ordinal()];
+                if (!Double.isNaN(v)) {
+                    p.apply(ar, v);
+                }
+            }
+        }
+
+        var coverage = new Coverage(room.bounds(), Robot.RADIUS * 2);
+        coverage.visit(room);
+        var ticks = (long)Math.ceil(seconds / step - 1e-9);
+        var start = System.nanoTime();
+        for (long i = 0; i < ticks; ++i) {
+            room.tick(step);
+            coverage.visit(room);
+        }
+        var wall = System.nanoTime() - start;
+
+        var stats = room.stats();
+        return new SweepResult(
+            params,
+            stats.ticks(),
+            stats.robotCollisions(),
+            stats.obstacleCollisions(),
+            coverage.fraction(),
+            wall
+        );
+    }
+
+    private static double[] parseList(String s, String name) {
+        var parts = s.split(",");
+        var res = new double[parts.length];
+        for (int i = 0; i < parts.length; ++i) {
+            res[i] = BatchRunner.parseDouble(parts[i].trim(), name);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Metrics of single room of a parameter sweep.
+ */
+
+package ija.robots.batch;
+
+/**
+ * Parameters and metrics of single room simulated by {@link Sweep}.
+ */
+public class SweepResult {
+    private double[] params;
+    private long ticks;
+    private long robotCollisions;
+    private long obstacleCollisions;
+    private double coverage;
+    private long wallNanos;
+
+    /**
+     * Creates new result.
+     * @param params Values of {@link AutoParam}s indexed by their ordinal,
+     * NaN if the parameter was kept from the scenario.
+     * @param ticks Number of simulated ticks.
+     * @param robotCollisions Number of collisions between robots.
+     * @param obstacleCollisions Number of collisions with obstacles.
+     * @param coverage Part of the room visited by robots, from 0 to 1.
+     * @param wallNanos Time that the simulation took in nanoseconds.
+     */
+    public SweepResult(
+        double[] params,
+        long ticks,
+        long robotCollisions,
+        long obstacleCollisions,
+        double coverage,
+        long wallNanos
+    ) {
+        this.params = params;
+        this.ticks = ticks;
+        this.robotCollisions = robotCollisions;
+        this.obstacleCollisions = obstacleCollisions;
+        this.coverage = coverage;
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * Gets the value of the parameter.
+     * @param param The parameter.
+     * @return The value or NaN if the value from the scenario was kept.
+     */
+    public double param(AutoParam param) {
+        return params[param.ordinal()];
+    }
+
+    /**
+     * Gets the number of simulated ticks.
+     * @return Number of ticks.
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the number of pairs of robots that were pushed apart.
+     * @return Number of collisions between robots.
+     */
+    public long robotCollisions() {
+        return robotCollisions;
+    }
+
+    /**
+     * Gets the number of times a robot was pushed out of an obstacle.
+     * @return Number of collisions with obstacles.
+     */
+    public long obstacleCollisions() {
+        return obstacleCollisions;
+    }
+
+    /**
+     * Gets the part of the room that was visited by the robots.
+     * @return Visited part of the room from 0 to 1.
+     */
+    public double coverage() {
+        return coverage;
+    }
+
+    /**
+     * Gets the time that the simulation took.
+     * @return Wall time in nanoseconds.
+     */
+    public long wallNanos() {
+        return wallNanos;
+    }
+}
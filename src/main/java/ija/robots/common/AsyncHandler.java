@@ -0,0 +1,210 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Log handler that writes the records on its own thread.
+ */
+
+package ija.robots.common;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Handler that passes log records to another handler on its own thread, so
+ * that formatting and writing the records never blocks the thread that
+ * logs. Records are queued in bounded queue; when the queue is full the
+ * records are dropped and the number of dropped records is logged later.
+ * Warnings and errors are never dropped, they wait in unbounded queue
+ * instead.
+ */
+public class AsyncHandler extends Handler {
+    /** Default maximum number of records waiting to be written. */
+    public static final int CAPACITY = 4096;
+    /** Maximum time to wait for the waiting records when closing in ms. */
+    private static final long CLOSE_TIMEOUT = 5000;
+
+    private final Handler target;
+    private final BlockingQueue<LogRecord> queue;
+    /** Important records that didn't fit into the queue. */
+    private final Queue<LogRecord> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicLong dropped = new AtomicLong(0);
+    /** Dropped records that weren't reported in the log yet. */
+    private final AtomicLong unreported = new AtomicLong(0);
+    private final Thread worker;
+    private volatile boolean closed = false;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Replaces the handlers of the root logger with a single asynchronous
+     * handler that passes the records to them. Does nothing if it was
+     * already installed.
+     */
+    public static synchronized void install() {
+        var root = Logger.getLogger("");
+        var handlers = root.getHandlers();
+        for (var h : handlers) {
+            if (h instanceof AsyncHandler) {
+                return;
+            }
+            root.removeHandler(h);
+        }
+        root.addHandler(new AsyncHandler(new Fanout(handlers), CAPACITY));
+    }
+
+    /**
+     * Creates new handler and starts its thread.
+     * @param target Handler that writes the records.
+     * @param capacity Maximum number of records waiting to be written.
+     */
+    public AsyncHandler(Handler target, int capacity) {
+        this.target = target;
+        queue = new ArrayBlockingQueue<>(capacity);
+        worker = new Thread(this::drain, "log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Gets the number of records that were dropped because the queue was
+     * full.
+     * @return Number of dropped records.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // the caller is found from the stack, so it must be found here and
+        // not on the worker thread
+        record.getSourceMethodName();
+        if (queue.offer(record)) {
+            return;
+        }
+        if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+            overflow.add(record);
+        } else {
+            dropped.incrementAndGet();
+            unreported.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void flush() {
+        // the worker flushes the target whenever the queue is empty
+    }
+
+    /**
+     * Writes all the waiting records and closes the target handler.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join(CLOSE_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void drain() {
+        try {
+            while (!closed) {
+                var rec = queue.poll(1, TimeUnit.SECONDS);
+                if (rec != null) {
+                    write(rec);
+                }
+                while ((rec = overflow.poll()) != null) {
+                    write(rec);
+                }
+                if (queue.isEmpty()) {
+                    target.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed, write the rest
+        }
+        LogRecord rec;
+        while ((rec = queue.poll()) != null) {
+            write(rec);
+        }
+        while ((rec = overflow.poll()) != null) {
+            write(rec);
+        }
+        var cnt = unreported.getAndSet(0);
+        if (cnt != 0) {
+            target.publish(droppedRecord(cnt));
+        }
+        target.flush();
+    }
+
+    private void write(LogRecord rec) {
+        var cnt = unreported.getAndSet(0);
+        if (cnt != 0) {
+            target.publish(droppedRecord(cnt));
+        }
+        target.publish(rec);
+    }
+
+    private static LogRecord droppedRecord(long cnt) {
+        var res = new LogRecord(
+            Level.WARNING,
+            "Dropped " + cnt + " log records, the log is too slow."
+        );
+        res.setLoggerName(AsyncHandler.class.getName());
+        return res;
+    }
+
+    /** Passes the records to multiple handlers. */
+    private static class Fanout extends Handler {
+        private final Handler[] handlers;
+
+        Fanout(Handler[] handlers) {
+            this.handlers = handlers;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            for (var h : handlers) {
+                h.publish(record);
+            }
+        }
+
+        @Override
+        public void flush() {
+            for (var h : handlers) {
+                h.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            for (var h : handlers) {
+                h.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Histogram of durations with fixed relative precision.
+ */
+
+package ija.robots.common;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non negative values, usually durations in nanoseconds. The
+ * buckets grow exponentially and each power of two is split into
+ * {@link #SUB_BUCKETS} linear buckets, so any value from 1 ns to hours is
+ * kept with relative error of at most 1/{@link #SUB_BUCKETS} in constant
+ * memory. Recording a value only increments a counter and never allocates.
+ *
+ * The histogram isn't synchronized, it must be copied by the thread that
+ * records into it or under the same lock.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 3;
+    /** Number of buckets in each power of two. */
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private long[] counts = new long[(Long.SIZE - SUB_BITS) * SUB_BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new empty histogram.
+     */
+    public Histogram() {
+    }
+
+    /**
+     * Creates copy of the histogram.
+     * @param other Histogram to copy.
+     */
+    public Histogram(Histogram other) {
+        counts = other.counts.clone();
+        count = other.count;
+        sum = other.sum;
+        max = other.max;
+    }
+
+    /**
+     * Adds value to the histogram. Negative values are counted as 0.
+     * @param val The value to add.
+     */
+    public void record(long val) {
+        val = Math.max(0, val);
+        ++counts[index(val)];
+        ++count;
+        sum += val;
+        max = Math.max(max, val);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * @return Number of recorded values.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     * @return The largest value or 0 if the histogram is empty.
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * Gets the average of the recorded values.
+     * @return The average or 0 if the histogram is empty.
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double)sum / count;
+    }
+
+    /**
+     * Gets the value below which is the given percentage of the recorded
+     * values. The result is the upper bound of the bucket with the value.
+     * @param pct The percentage in range 0 to 100.
+     * @return The value at the percentile or 0 if the histogram is empty.
+     */
+    public long percentile(double pct) {
+        if (count == 0) {
+            return 0;
+        }
+        var target = Math.max(1, (long)Math.ceil(pct / 100 * count));
+        var cum = 0L;
+        for (int i = 0; i < counts.length; ++i) {
+            cum += counts[i];
+            if (cum >= target) {
+                return Math.min(max, lowest(i + 1) - 1);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Removes all the recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private static int index(long val) {
+        if (val < SUB_BUCKETS) {
+            return (int)val;
+        }
+        var mag = Long.SIZE - 1 - Long.numberOfLeadingZeros(val);
+        var sub = (int)(val >>> (mag - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (mag - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long lowest(int idx) {
+        if (idx < SUB_BUCKETS) {
+            return idx;
+        }
+        var mag = idx / SUB_BUCKETS + SUB_BITS - 1;
+        if (mag >= Long.SIZE - 1) {
+            return Long.MAX_VALUE;
+        }
+        var sub = idx % SUB_BUCKETS;
+        return (long)(SUB_BUCKETS + sub) << (mag - SUB_BITS);
+    }
+}
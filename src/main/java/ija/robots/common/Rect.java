@@ -6,6 +6,8 @@
 
 package ija.robots.common;
 
+import java.util.Objects;
+
 /**
  * Represents a rectangle.
  */
@@ -353,4 +355,16 @@ public final class Rect {
     public String toString() {
         return "Rect{" + pos + ", " + size + "}";
     }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Rect r
+            && r.pos.equals(pos)
+            && r.size.equals(size);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(pos, size);
+    }
 }
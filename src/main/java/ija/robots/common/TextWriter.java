@@ -0,0 +1,146 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Buffered writer of ASCII text with fast number formatting.
+ */
+
+package ija.robots.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+
+/**
+ * Writes ASCII text into a channel through a buffer. Numbers are formatted
+ * the same way as with {@code %f} without going through
+ * {@link String#format}.
+ */
+public class TextWriter implements Closeable {
+    /** Numbers that are formatted without the slow path. */
+    private static final double MAX_FAST = 1e7;
+    /** Scale for the 6 digits after the decimal point. */
+    private static final long SCALE = 1_000_000;
+    /**
+     * Values that are closer to the half of the last digit than this may be
+     * rounded differently than by {@link String#format}.
+     */
+    private static final double TIE_MARGIN = 0.01;
+
+    private WritableByteChannel out;
+    private ByteBuffer buf;
+    private byte[] digits = new byte[20];
+
+    /**
+     * Creates new writer.
+     * @param out Channel to write to.
+     * @param size Size of the buffer in bytes.
+     */
+    public TextWriter(WritableByteChannel out, int size) {
+        this.out = out;
+        buf = ByteBuffer.allocate(size);
+    }
+
+    /**
+     * Writes ASCII string.
+     * @param s String to write.
+     * @return This writer.
+     * @throws IOException when the channel cannot be written.
+     */
+    public TextWriter write(String s) throws IOException {
+        for (int i = 0; i < s.length(); ++i) {
+            write(s.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Writes single ASCII character.
+     * @param c Character to write.
+     * @return This writer.
+     * @throws IOException when the channel cannot be written.
+     */
+    public TextWriter write(char c) throws IOException {
+        if (!buf.hasRemaining()) {
+            flush();
+        }
+        buf.put((byte)c);
+        return this;
+    }
+
+    /**
+     * Writes number with 6 digits after the decimal point. The result is
+     * the same as {@code String.format(Locale.ROOT, "%f", v)}.
+     * @param v Number to write.
+     * @return This writer.
+     * @throws IOException when the channel cannot be written.
+     */
+    public TextWriter writeFixed(double v) throws IOException {
+        var abs = Math.abs(v);
+        if (!(abs < MAX_FAST)) {
+            return write(String.format(Locale.ROOT, "%f", v));
+        }
+
+        var scaled = abs * SCALE;
+        var whole = Math.floor(scaled);
+        var frac = scaled - whole;
+        if (Math.abs(frac - 0.5) < TIE_MARGIN) {
+            // %f rounds the shortest decimal representation half up, which
+            // may differ from the binary value near ties
+            return write(String.format(Locale.ROOT, "%f", v));
+        }
+
+        var r = (long)whole + (frac > 0.5 ? 1 : 0);
+        if (Double.doubleToRawLongBits(v) < 0) {
+            write('-');
+        }
+        writeLong(r / SCALE);
+        write('.');
+        var f = r % SCALE;
+        for (long d = SCALE / 10; d > 0; d /= 10) {
+            write((char)('0' + f / d % 10));
+        }
+        return this;
+    }
+
+    /**
+     * Writes all the buffered text to the channel.
+     * @throws IOException when the channel cannot be written.
+     */
+    public void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Flushes the buffer and closes the channel.
+     * @throws IOException when the channel cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void writeLong(long v) throws IOException {
+        var cnt = 0;
+        do {
+            digits[cnt++] = (byte)('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        while (cnt > 0) {
+            write((char)digits[--cnt]);
+        }
+    }
+}
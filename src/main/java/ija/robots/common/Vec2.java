@@ -6,6 +6,8 @@
 
 package ija.robots.common;
 
+import java.util.Objects;
+
 /**
  * Represents vector, position, size or range.
  */
@@ -309,4 +311,10 @@ public final class Vec2 {
     public boolean equals(Object other) {
         return other instanceof Vec2 v && v.x == x && v.y == y;
     }
+
+    @Override
+    public int hashCode() {
+        // -0 equals 0, so it must have the same hash
+        return Objects.hash(x + 0., y + 0.);
+    }
 }
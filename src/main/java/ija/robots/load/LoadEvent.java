@@ -0,0 +1,46 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Flight recorder event of loading a room.
+ */
+
+package ija.robots.load;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted by {@link Loader#load}. The duration
+ * of the event is the time of reading the file and replacing the objects
+ * of the room.
+ */
+@Name("ija.robots.Load")
+@Label("Room Load")
+@Category({ "IJA Robots", "Files" })
+@Description("Room loaded from a file.")
+class LoadEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Binary")
+    @Description("The file is in the binary format.")
+    boolean binary;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Obstacles")
+    int obstacles;
+
+    @Label("Robots")
+    int robots;
+
+    @Label("Success")
+    @Description("The file was valid and the room was replaced.")
+    boolean success;
+}
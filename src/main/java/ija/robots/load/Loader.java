@@ -6,9 +6,13 @@
 
 package ija.robots.load;
 
-import java.io.File;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Scanner;
 import java.util.logging.Logger;
 
 import ija.robots.actors.AutoRobot;
@@ -16,6 +20,7 @@ import ija.robots.actors.ControlRobot;
 import ija.robots.actors.Obstacle;
 import ija.robots.actors.Robot;
 import ija.robots.actors.Room;
+import ija.robots.actors.RoomSnapshot;
 import ija.robots.common.Rect;
 import ija.robots.common.Vec2;
 import javafx.scene.control.Alert;
@@ -39,62 +44,199 @@ public class Loader {
     }
 
     /**
-     * Loads room from the file
+     * Loads room from the file and resizes the window to the size of the
+     * room. Errors are shown to the user.
      * @param stage window
      * @param room room to load obstacles and robots into
      */
     public void load(Stage stage, Room room) {
+        Vec2 size;
+        try {
+            size = load(room);
+        } catch (Exception e) {
+            log.severe("Failed to load room: " + e.getMessage());
+            Alert alert = new Alert(AlertType.ERROR, e.getMessage());
+            alert.show();
+            return;
+        }
+
+        if (size != null) {
+            stage.setWidth(size.width());
+            stage.setHeight(size.height() + 80);
+        }
+    }
+
+    /**
+     * Loads room from the file. The file may be either in the text format
+     * or in the binary format of {@link RoomSnapshot}, the format is
+     * detected by the first bytes of the file. The room is changed only if
+     * the whole file is loaded successfully.
+     * @param room room to load obstacles and robots into
+     * @return Size of the room in the file or null if the file doesn't
+     * specify the size.
+     * @throws Exception when the file cannot be read or is invalid.
+     */
+    public Vec2 load(Room room) throws Exception {
+        var evt = new LoadEvent();
+        evt.begin();
+        evt.file = filename;
+
         var obstacles = new ArrayList<Obstacle>();
         var robots = new ArrayList<Robot>();
 
+        Vec2 size;
         try {
-            var scan = new Scanner(new File(filename));
-            var lexer = new LoaderLex(scan);
+            try (var file = FileChannel.open(Path.of(filename))) {
+                evt.bytes = file.size();
+                // the file is read through single mapped buffer
+                if (file.size() > Integer.MAX_VALUE)
+                    throw new Exception(String.format(
+                        "Room file is too large (%d bytes), at most %d bytes"
+                            + " are supported",
+                        file.size(),
+                        Integer.MAX_VALUE
+                    ));
+                var buf = file.map(MapMode.READ_ONLY, 0, file.size());
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                evt.binary = isBinary(buf);
+                if (evt.binary) {
+                    size = loadBinary(buf, obstacles, robots);
+                } else {
+                    size = loadText(new LoaderLex(buf), obstacles, robots);
+                }
+            }
 
-            cur = lexer.next();
-            while (cur != Token.Eof) {
-                if (cur != Token.Ident)
-                    throw new Exception("Unexpected token in file");
+            room.clear(obstacles, robots);
+            evt.success = true;
+        } finally {
+            // failed loads are recorded too, they may be just as slow
+            evt.obstacles = obstacles.size();
+            evt.robots = robots.size();
+            evt.commit();
+        }
+        return size;
+    }
 
-                switch (lexer.getString()) {
-                    case "room":
-                        cur = lexer.next();
-                        if (cur != Token.Number)
-                            throw new Exception("Room expects size");
-                        var size = readSize(lexer);
-                        stage.setWidth(size.width());
-                        stage.setHeight(size.height() + 80);
+    private Vec2 loadText(
+        LoaderLex lexer,
+        ArrayList<Obstacle> obstacles,
+        ArrayList<Robot> robots
+    ) throws Exception {
+        Vec2 size = null;
 
-                        cur = lexer.next();
-                        break;
-                    case "obstacle":
-                        obstacles.add(loadObstacle(lexer));
-                        break;
-                    case "robot":
-                        robots.add(loadRobot(lexer));
-                        break;
-                    case "auto_robot":
-                        robots.add(load_auto_robot(lexer));
-                        break;
-                    case "control_robot":
-                        robots.add(load_control_robot(lexer));
-                        break;
-                    default:
-                        throw new Exception(String.format(
-                            "Unexpected identifier '%s'",
-                            lexer.getString()
-                        ));
-                }
+        cur = lexer.next();
+        while (cur != Token.Eof) {
+            if (cur != Token.Ident)
+                throw new Exception("Unexpected token in file");
+
+            switch (lexer.getString()) {
+                case "room":
+                    cur = lexer.next();
+                    if (cur != Token.Number)
+                        throw new Exception("Room expects size");
+                    size = readSize(lexer);
+
+                    cur = lexer.next();
+                    break;
+                case "obstacle":
+                    obstacles.add(loadObstacle(lexer));
+                    break;
+                case "robot":
+                    robots.add(loadRobot(lexer));
+                    break;
+                case "auto_robot":
+                    robots.add(load_auto_robot(lexer));
+                    break;
+                case "control_robot":
+                    robots.add(load_control_robot(lexer));
+                    break;
+                default:
+                    throw new Exception(String.format(
+                        "Unexpected identifier '%s'",
+                        lexer.getString()
+                    ));
             }
-            scan.close();
-        } catch (Exception e) {
-            log.severe("Failed to load room: " + e.getMessage());
-            Alert alert = new Alert(AlertType.ERROR, e.getMessage());
-            alert.show();
-            return;
         }
+        return size;
+    }
 
-        room.clear(obstacles, robots);
+    private static boolean isBinary(ByteBuffer buf) {
+        return buf.limit() >= Long.BYTES
+            && buf.getLong(0) == RoomSnapshot.MAGIC;
+    }
+
+    private Vec2 loadBinary(
+        ByteBuffer buf,
+        ArrayList<Obstacle> obstacles,
+        ArrayList<Robot> robots
+    ) throws Exception {
+        if (buf.limit() < RoomSnapshot.HEADER_SIZE)
+            throw new Exception("Truncated header of binary room");
+        var version = buf.getInt(8);
+        if (version != RoomSnapshot.VERSION)
+            throw new Exception(
+                "Unsupported binary room version " + version
+            );
+
+        var size = new Vec2(buf.getDouble(16), buf.getDouble(24));
+        var obstCnt = buf.getInt(32);
+        var robCnt = buf.getInt(36);
+        var min = RoomSnapshot.HEADER_SIZE
+            + (long)obstCnt * RoomSnapshot.OBSTACLE_SIZE
+            + (long)robCnt * RoomSnapshot.MIN_ROBOT_SIZE;
+        if (obstCnt < 0 || robCnt < 0 || min > buf.limit())
+            throw new Exception("Invalid number of objects in binary room");
+
+        buf.position(RoomSnapshot.HEADER_SIZE);
+        try {
+            obstacles.ensureCapacity(obstCnt);
+            for (int i = 0; i < obstCnt; ++i) {
+                var rect = new Rect(
+                    buf.getDouble(),
+                    buf.getDouble(),
+                    buf.getDouble(),
+                    buf.getDouble()
+                );
+                var obst = new Obstacle(rect);
+                obst.hitbox(rect);
+                obstacles.add(obst);
+            }
+
+            robots.ensureCapacity(robCnt);
+            for (int i = 0; i < robCnt; ++i) {
+                robots.add(loadBinaryRobot(buf));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new Exception("Truncated binary room");
+        }
+        return size;
+    }
+
+    private Robot loadBinaryRobot(ByteBuffer buf) throws Exception {
+        var type = buf.getInt();
+        var pos = new Vec2(buf.getDouble(), buf.getDouble());
+        var speed = buf.getDouble();
+        var angle = buf.getDouble();
+
+        Robot rob;
+        switch (type) {
+            case RoomSnapshot.ROBOT:
+                rob = new Robot(pos, speed, angle);
+                break;
+            case RoomSnapshot.AUTO_ROBOT:
+                var rspeed = buf.getDouble();
+                var edist = buf.getDouble();
+                var erot = buf.getDouble();
+                rob = new AutoRobot(pos, speed, angle, edist, erot, rspeed);
+                break;
+            case RoomSnapshot.CONTROL_ROBOT:
+                rob = new ControlRobot(pos, speed, angle, buf.getDouble());
+                break;
+            default:
+                throw new Exception("Unknown robot type " + type);
+        }
+        rob.hitbox(new Rect(pos.x(), pos.y(), 0, 0));
+        return rob;
     }
 
     private Obstacle loadObstacle(LoaderLex lexer) throws Exception {
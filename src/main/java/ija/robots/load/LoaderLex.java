@@ -6,27 +6,45 @@
 
 package ija.robots.load;
 
-import java.util.Scanner;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 
 /**
- * Class for tokenizing saved room file
+ * Class for tokenizing saved room file. The lexer reads the bytes directly
+ * from the buffer, so it works well with memory mapped files. Tokens are
+ * only positions in the buffer and numbers are parsed in place.
  */
 public class LoaderLex {
-    private String res = "";
-    private char cur;
-    private Scanner scan;
+    /** Maximum number of digits that fit into double without rounding. */
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+        1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    private ByteBuffer buf;
+    private int pos;
+    private int end;
+    private int cur;
+    private int start;
+    private int len;
+    private double num;
+    private Token token = Token.Eof;
+    private ArrayList<String> idents = new ArrayList<>();
 
     /**
      * Creates new loader lexer
-     * @param scan scanner to use for loading
+     * @param buf buffer with the file, it is read from its position to its
+     * limit
      */
-    public LoaderLex(Scanner scan) {
-        scan.useDelimiter("");
+    public LoaderLex(ByteBuffer buf) {
+        this.buf = buf;
+        pos = buf.position();
+        end = buf.limit();
         cur = ' ';
-        if (scan.hasNext())
-            cur = scan.next().charAt(0);
-
-        this.scan = scan;
+        if (pos < end)
+            nextChar();
     }
 
     /**
@@ -35,12 +53,13 @@ public class LoaderLex {
      * @throws Exception when unexpected character in file
      */
     public Token next() throws Exception {
-        res = "";
+        token = Token.Eof;
+        len = 0;
         if (skipWhitespace() == '\0')
-            return Token.Eof;
+            return token;
 
-        res += cur;
-        var token = Token.Eof;
+        start = pos - 1;
+        len = 1;
         switch (cur) {
             case '{':
                 token = Token.OptStart;
@@ -61,20 +80,20 @@ public class LoaderLex {
                 token = Token.Colon;
                 break;
             default:
-                if (Character.isDigit(cur)) {
-                    return readNum();
+                if (isDigit(cur)) {
+                    return token = readNum();
                 } else if (cur == '-') {
-                    return readNegNum();
-                } else if (Character.isAlphabetic(cur)) {
+                    return token = readNegNum();
+                } else if (isAlphabetic(cur)) {
                     token = readIdent();
                 } else {
                     throw new Exception(
-                        "Unexpected character '" + cur + "' in file"
+                        "Unexpected character '" + (char)cur + "' in file"
                     );
                 }
         }
         cur = ' ';
-        if (scan.hasNext())
+        if (pos < end)
             nextChar();
         return token;
     }
@@ -84,6 +103,16 @@ public class LoaderLex {
      * @return last token value
      */
     public String getString() {
+        if (token != Token.Ident)
+            return new String(slice(), StandardCharsets.ISO_8859_1);
+
+        // identifiers repeat a lot, so reuse the strings
+        for (var s : idents) {
+            if (matches(s))
+                return s;
+        }
+        var res = new String(slice(), StandardCharsets.ISO_8859_1);
+        idents.add(res);
         return res;
     }
 
@@ -92,39 +121,65 @@ public class LoaderLex {
      * @return last token double representation
      */
     public double getNum() {
-        return Double.parseDouble(res);
+        return num;
     }
 
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
     private Token readNum() {
         boolean f = false;
-        while (scan.hasNext()) {
+        long mant = isDigit(cur) ? cur - '0' : 0;
+        int digits = mant == 0 ? 0 : 1;
+        int frac = 0;
+        while (pos < end) {
             nextChar();
             if (cur == '.') {
                 if (f)
                     break;
                 f = true;
-            } else if (!Character.isDigit(cur)) {
+            } else if (!isDigit(cur)) {
                 break;
+            } else {
+                // leading zeros don't count to the precision
+                if (digits != 0 || cur != '0')
+                    ++digits;
+                if (digits <= MAX_EXACT_DIGITS)
+                    mant = mant * 10 + cur - '0';
+                if (f)
+                    ++frac;
             }
-            res += cur;
+            ++len;
+        }
+
+        if (digits <= MAX_EXACT_DIGITS && frac < POW10.length) {
+            // both values are exact so the result is correctly rounded
+            num = mant / POW10[frac];
+            if (buf.get(start) == '-')
+                num = -num;
+        } else {
+            num = Double.parseDouble(new String(
+                slice(), StandardCharsets.ISO_8859_1
+            ));
         }
         return Token.Number;
     }
 
     private Token readNegNum() throws Exception {
-        if (!Character.isDigit(nextChar()))
+        if (pos >= end || !isDigit(nextChar()))
             throw new Exception("Unexpected character '-' in file");
 
-        res += cur;
+        ++len;
         return readNum();
     }
 
     private Token readIdent() throws Exception {
-        while (scan.hasNext()) {
+        while (pos < end) {
             nextChar();
-            if (!Character.isAlphabetic(cur) && cur != '_')
+            if (!isAlphabetic(cur) && cur != '_')
                 break;
-            res += cur;
+            ++len;
         }
 
         if (cur != ':' && skipWhitespace() != ':')
@@ -133,16 +188,46 @@ public class LoaderLex {
         return Token.Ident;
     }
 
-    private char nextChar() {
-        return cur = scan.next().charAt(0);
+    private int nextChar() {
+        return cur = buf.get(pos++) & 0xff;
     }
 
-    private char skipWhitespace() {
-        while (Character.isWhitespace(cur)) {
-            if (!scan.hasNext())
+    private int skipWhitespace() {
+        while (isWhitespace(cur)) {
+            if (pos >= end)
                 return '\0';
             nextChar();
         }
         return cur;
     }
+
+    private boolean matches(String s) {
+        if (s.length() != len)
+            return false;
+        for (int i = 0; i < len; ++i) {
+            if (s.charAt(i) != (buf.get(start + i) & 0xff))
+                return false;
+        }
+        return true;
+    }
+
+    private byte[] slice() {
+        var bytes = new byte[len];
+        buf.get(start, bytes);
+        return bytes;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlphabetic(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' '
+            || (c >= '\t' && c <= '\r')
+            || (c >= 0x1c && c <= 0x1f);
+    }
 }
@@ -0,0 +1,231 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Draws whole room to single canvas.
+ */
+
+package ija.robots.view;
+
+import ija.robots.actors.Obstacle;
+import ija.robots.actors.Robot;
+import ija.robots.actors.Room;
+import ija.robots.actors.RoomFrame;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws all the objects of a room to single canvas. Objects are drawn in
+ * batches by their type and color so the graphics state changes only a few
+ * times per frame. Robots are drawn from the frames published by the
+ * simulation. Objects under the mouse are found with a query to the room
+ * instead of having handlers on each object.
+ */
+public class CanvasView {
+    private static final double ADJ = Obstacle.BORDER_THICKNESS / 2;
+
+    private Room room;
+    private Canvas canvas = new Canvas();
+
+    private Robot dragRobot = null;
+    private ObstacleDrag obstDrag = null;
+    private boolean obstPressed = false;
+    private Vec2 lastPos = new Vec2(0, 0);
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new canvas view of the given room.
+     * @param room The room to draw.
+     */
+    public CanvasView(Room room) {
+        this.room = room;
+        resize(room.bounds());
+
+        canvas.setOnMouseMoved(e -> hover(e));
+        canvas.setOnMousePressed(e -> mousePress(e));
+        canvas.setOnMouseDragged(e -> mouseDrag(e));
+        canvas.setOnMouseReleased(e -> mouseRelease(e));
+    }
+
+    /**
+     * Gets the canvas that the room is drawn to.
+     * @return The canvas.
+     */
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Resizes the canvas.
+     * @param bounds The new bounds of the room.
+     */
+    public void resize(Rect bounds) {
+        canvas.setWidth(bounds.width());
+        canvas.setHeight(bounds.height());
+    }
+
+    /**
+     * Draws the obstacles of the room and the robots from the frame.
+     * @param frame Positions of the robots.
+     * @param alpha Position between the previous and current positions in
+     * the frame.
+     */
+    public void draw(RoomFrame frame, double alpha) {
+        var g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        drawObstacles(g);
+        drawRobots(g, frame, alpha);
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void drawObstacles(GraphicsContext g) {
+        var obsts = room.obstacles();
+        g.setFill(ObstacleView.FILL);
+        for (var o : obsts) {
+            var b = o.hitbox();
+            g.fillRect(
+                b.x() + ADJ,
+                b.y() + ADJ,
+                b.width() - ADJ * 2,
+                b.height() - ADJ * 2
+            );
+        }
+
+        g.setLineWidth(Obstacle.BORDER_THICKNESS);
+        for (int pass = 0; pass < 2; ++pass) {
+            // selected obstacles are drawn last so they are on top
+            var selected = pass == 1;
+            g.setStroke(selected ? RobotView.SELECTED_STROKE : Color.WHITE);
+            for (var o : obsts) {
+                if (o.isSelected() != selected) {
+                    continue;
+                }
+                var b = o.hitbox();
+                g.strokeRect(
+                    b.x() + ADJ,
+                    b.y() + ADJ,
+                    b.width() - ADJ * 2,
+                    b.height() - ADJ * 2
+                );
+            }
+        }
+    }
+
+    private void drawRobots(GraphicsContext g, RoomFrame frame, double alpha) {
+        var n = frame.count();
+        var r = Robot.RADIUS;
+
+        // one batch for each fill color
+        for (var fill : new Color[] {
+            RobotView.DUMMY_FILL,
+            RobotView.AUTO_FILL,
+            RobotView.CONTROL_FILL,
+        }) {
+            g.setFill(fill);
+            for (int i = 0; i < n; ++i) {
+                if (RobotView.fill(frame.robot(i)) == fill) {
+                    var x = frame.x(i, alpha);
+                    var y = frame.y(i, alpha);
+                    g.fillOval(x - r, y - r, r * 2, r * 2);
+                }
+            }
+        }
+
+        g.setLineWidth(Robot.BORDER_THICKNESS);
+        for (int pass = 0; pass < 2; ++pass) {
+            var selected = pass == 1;
+            g.setStroke(selected ? RobotView.SELECTED_STROKE : Color.WHITE);
+            for (int i = 0; i < n; ++i) {
+                if (frame.robot(i).isSelected() == selected) {
+                    var x = frame.x(i, alpha);
+                    var y = frame.y(i, alpha);
+                    g.strokeOval(x - r, y - r, r * 2, r * 2);
+                }
+            }
+        }
+
+        var e = RobotView.EYE_RADIUS;
+        g.setFill(Color.WHITE);
+        for (int i = 0; i < n; ++i) {
+            var a = frame.angle(i, alpha);
+            var ex = frame.x(i, alpha) + Math.cos(a) * r * 2 / 3.;
+            var ey = frame.y(i, alpha) + Math.sin(a) * r * 2 / 3.;
+            g.fillOval(ex - e, ey - e, e * 2, e * 2);
+        }
+    }
+
+    private void hover(MouseEvent event) {
+        var pos = new Vec2(event.getX(), event.getY());
+        var obj = room.objectAt(pos.x(), pos.y());
+        if (obj instanceof Robot) {
+            canvas.setCursor(Cursor.OPEN_HAND);
+        } else if (obj instanceof Obstacle o) {
+            canvas.setCursor(obstacleDrag(o).hover(pos));
+        } else {
+            canvas.setCursor(Cursor.DEFAULT);
+        }
+    }
+
+    private void mousePress(MouseEvent event) {
+        var pos = new Vec2(event.getX(), event.getY());
+        var obj = room.objectAt(pos.x(), pos.y());
+        if (obj instanceof Robot rob) {
+            rob.setSelected(true);
+            if (event.getButton() == MouseButton.PRIMARY) {
+                rob.setDragging(true);
+                dragRobot = rob;
+                lastPos = pos;
+                canvas.setCursor(Cursor.CLOSED_HAND);
+            }
+        } else if (obj instanceof Obstacle o) {
+            var drag = obstacleDrag(o);
+            drag.hover(pos);
+            obstPressed = true;
+            var cur = drag.press(event.getButton());
+            if (cur != null) {
+                canvas.setCursor(cur);
+            }
+        }
+    }
+
+    private void mouseDrag(MouseEvent event) {
+        var pos = new Vec2(event.getX(), event.getY());
+        if (dragRobot != null) {
+            var delta = pos.sub(lastPos);
+            dragRobot.hitbox(dragRobot.hitbox().moveBy(delta));
+            lastPos = pos;
+        } else if (obstPressed) {
+            obstDrag.drag(pos);
+        }
+    }
+
+    private void mouseRelease(MouseEvent event) {
+        if (dragRobot != null) {
+            dragRobot.setDragging(false);
+            dragRobot = null;
+            canvas.setCursor(Cursor.OPEN_HAND);
+        }
+        if (obstPressed) {
+            obstDrag.release();
+            obstPressed = false;
+        }
+    }
+
+    private ObstacleDrag obstacleDrag(Obstacle o) {
+        if (obstDrag == null || obstDrag.obstacle() != o) {
+            obstDrag = new ObstacleDrag(o);
+        }
+        return obstDrag;
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Snapshot of the performance counters of a running room.
+ */
+
+package ija.robots.view;
+
+import ija.robots.actors.RoomStats;
+import ija.robots.common.Histogram;
+
+/**
+ * Copy of the performance counters of a room view at single moment: the
+ * counters of the simulation, the scheduler and the drawing. The snapshot
+ * doesn't change when the room keeps running.
+ */
+public class Metrics {
+    private final RoomStats stats;
+    private final Histogram render;
+    private final int robots;
+    private final int obstacles;
+    private final long batches;
+    private final long dropped;
+    private final long coalesced;
+    private final long published;
+    private final long shown;
+    private final long pending;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Gets the counters of the simulation. The histograms have values only
+     * if profiling was enabled.
+     * @return Copy of the counters of the room.
+     */
+    public RoomStats stats() {
+        return stats;
+    }
+
+    /**
+     * Gets the histogram of the time spent drawing single frame while
+     * profiling was enabled.
+     * @return Histogram of durations in nanoseconds.
+     */
+    public Histogram render() {
+        return render;
+    }
+
+    /**
+     * Gets the number of robots in the room.
+     * @return Number of robots.
+     */
+    public int robots() {
+        return robots;
+    }
+
+    /**
+     * Gets the number of obstacles in the room.
+     * @return Number of obstacles.
+     */
+    public int obstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Gets the number of batches of ticks run by the scheduler.
+     * @return Number of batches.
+     */
+    public long batches() {
+        return batches;
+    }
+
+    /**
+     * Gets the number of ticks dropped by the scheduler because the
+     * simulation couldn't keep up.
+     * @return Number of dropped ticks.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Gets the number of ticks that ran late together with other ticks.
+     * @return Number of coalesced ticks.
+     */
+    public long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Gets the number of frames published by the simulation.
+     * @return Number of published frames.
+     */
+    public long published() {
+        return published;
+    }
+
+    /**
+     * Gets the number of published frames that were drawn.
+     * @return Number of drawn frames.
+     */
+    public long shown() {
+        return shown;
+    }
+
+    /**
+     * Gets the number of frames that wait to be drawn.
+     * @return Number of waiting frames.
+     */
+    public long pending() {
+        return pending;
+    }
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new snapshot. The stats and the histogram must already be
+     * copies.
+     */
+    Metrics(
+        RoomStats stats,
+        Histogram render,
+        int robots,
+        int obstacles,
+        long batches,
+        long dropped,
+        long coalesced,
+        long published,
+        long shown,
+        long pending
+    ) {
+        this.stats = stats;
+        this.render = render;
+        this.robots = robots;
+        this.obstacles = obstacles;
+        this.batches = batches;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.published = published;
+        this.shown = shown;
+        this.pending = pending;
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Text with the performance counters drawn over a room.
+ */
+
+package ija.robots.view;
+
+import java.util.Locale;
+
+import ija.robots.actors.Phase;
+import ija.robots.common.Histogram;
+import javafx.scene.control.Label;
+
+/**
+ * Label that shows {@link Metrics} over the room: percentiles of the
+ * duration of the phases of the ticks and of drawing, and the counters of
+ * the scheduler and of the frames. It ignores the mouse, so the room below
+ * it can still be used.
+ */
+public class MetricsOverlay {
+    /** Minimum time between updates of the text in nanoseconds. */
+    public static final long PERIOD = 250_000_000L;
+
+    private Label label = new Label();
+    private long lastUpdate = 0;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new empty overlay.
+     */
+    public MetricsOverlay() {
+        label.setMouseTransparent(true);
+        label.setLayoutX(5);
+        label.setLayoutY(40);
+        label.setStyle(
+            "-fx-background-color: #000000aa; -fx-text-fill: #ffffff;"
+            + " -fx-font-family: monospace; -fx-padding: 5;"
+        );
+    }
+
+    /**
+     * Gets the node of the overlay.
+     * @return Node that can be added to the scene.
+     */
+    public Label getNode() {
+        return label;
+    }
+
+    /**
+     * Checks whether it is time to update the text.
+     * @param now Current time from {@link System#nanoTime()}.
+     * @return true if {@link #update(Metrics, long)} should be called.
+     */
+    public boolean isDue(long now) {
+        return now - lastUpdate >= PERIOD;
+    }
+
+    /**
+     * Shows the metrics.
+     * @param m The metrics to show.
+     * @param now Current time from {@link System#nanoTime()}.
+     */
+    public void update(Metrics m, long now) {
+        lastUpdate = now;
+        var sb = new StringBuilder();
+        sb.append(String.format(
+            Locale.ROOT,
+            "%-9s %8s %8s %8s %8s%n",
+            "us",
+            "mean",
+            "p50",
+            "p99",
+            "max"
+        ));
+        var stats = m.stats();
+        for (var p : Phase.values()) {
+            row(sb, p.name().toLowerCase(Locale.ROOT), stats.histogram(p));
+        }
+        row(sb, "tick", stats.tickHistogram());
+        row(sb, "render", m.render());
+        sb.append(String.format(
+            Locale.ROOT,
+            "robots %d  obstacles %d%n",
+            m.robots(),
+            m.obstacles()
+        ));
+        sb.append(String.format(
+            Locale.ROOT,
+            "ticks %d  batches %d  dropped %d  coalesced %d%n",
+            stats.ticks(),
+            m.batches(),
+            m.dropped(),
+            m.coalesced()
+        ));
+        sb.append(String.format(
+            Locale.ROOT,
+            "frames %d  drawn %d  pending %d",
+            m.published(),
+            m.shown(),
+            m.pending()
+        ));
+        label.setText(sb.toString());
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private static void row(StringBuilder sb, String name, Histogram h) {
+        sb.append(String.format(
+            Locale.ROOT,
+            "%-9s %8.1f %8.1f %8.1f %8.1f%n",
+            name,
+            h.mean() / 1e3,
+            h.percentile(50) / 1e3,
+            h.percentile(99) / 1e3,
+            h.max() / 1e3
+        ));
+    }
+}
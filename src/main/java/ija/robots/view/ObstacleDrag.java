@@ -0,0 +1,187 @@
+/**
+ * @file
+ * @authors Martin Slezák (xsleza26), Jakub Antonín Štigler (xstigl00)
+ * @brief Moving and resizing of an obstacle with the mouse.
+ */
+
+package ija.robots.view;
+
+import ija.robots.actors.Obstacle;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+import javafx.scene.Cursor;
+import javafx.scene.input.MouseButton;
+
+/**
+ * Lets the user move and resize obstacle with the mouse. Grabbing the
+ * border of the obstacle resizes it, grabbing the inside moves it. The
+ * state doesn't depend on how the obstacle is drawn.
+ */
+class ObstacleDrag {
+    /**
+     * Dragging state of the obstacle.
+     */
+    private class State {
+        static final int NONE = 0x0;
+        static final int DRAGGING = 0x1;
+        static final int RESIZE_HORIZONTAL = 0x02;
+        static final int RESIZE_VERTICAL = 0x04;
+        static final int RESIZE_LEFT = 0x8;
+        static final int RESIZE_TOP = 0x10;
+    }
+
+    private static final double ADJ = Obstacle.BORDER_THICKNESS / 2;
+
+    private Obstacle obstacle;
+    private Vec2 lastPos = new Vec2(0, 0);
+    private int state = State.NONE;
+
+    /**
+     * Creates new drag handler of the obstacle.
+     * @param obstacle The obstacle to move and resize.
+     */
+    ObstacleDrag(Obstacle obstacle) {
+        this.obstacle = obstacle;
+    }
+
+    /**
+     * Gets the dragged obstacle.
+     * @return The dragged obstacle.
+     */
+    Obstacle obstacle() {
+        return obstacle;
+    }
+
+    /**
+     * Decides what will be done when the mouse is pressed at the given
+     * position.
+     * @param pos Position of the mouse.
+     * @return Cursor that should be shown.
+     */
+    Cursor hover(Vec2 pos) {
+        lastPos = pos;
+        var box = obstacle.hitbox();
+        var relPos = lastPos.sub(box.x() + ADJ, box.y() + ADJ);
+        var w = box.width() - ADJ * 2;
+        var h = box.height() - ADJ * 2;
+
+        state = State.NONE;
+
+        if (relPos.x() < ADJ) {
+            state |= State.RESIZE_HORIZONTAL | State.RESIZE_LEFT;
+        } else if (w - relPos.x() <= ADJ) {
+            state |= State.RESIZE_HORIZONTAL;
+        }
+
+        if (relPos.y() < ADJ) {
+            state |= State.RESIZE_VERTICAL | State.RESIZE_TOP;
+        } else if (h - relPos.y() <= ADJ) {
+            state |= State.RESIZE_VERTICAL;
+        }
+
+        switch (state) {
+            case State.RESIZE_HORIZONTAL
+                | State.RESIZE_VERTICAL
+                | State.RESIZE_LEFT
+                | State.RESIZE_TOP:
+            case State.RESIZE_HORIZONTAL | State.RESIZE_VERTICAL:
+                return Cursor.NW_RESIZE;
+            case State.RESIZE_HORIZONTAL
+                | State.RESIZE_VERTICAL
+                | State.RESIZE_TOP:
+            case State.RESIZE_HORIZONTAL
+                | State.RESIZE_VERTICAL
+                | State.RESIZE_LEFT:
+                return Cursor.NE_RESIZE;
+            case State.RESIZE_HORIZONTAL:
+            case State.RESIZE_HORIZONTAL | State.RESIZE_LEFT:
+                return Cursor.E_RESIZE;
+            case State.RESIZE_VERTICAL:
+            case State.RESIZE_VERTICAL | State.RESIZE_TOP:
+                return Cursor.N_RESIZE;
+            default:
+                return Cursor.OPEN_HAND;
+        }
+    }
+
+    /**
+     * Selects the obstacle and starts moving it if it isn't resized.
+     * @param button The pressed button.
+     * @return Cursor that should be shown or null if it shouldn't change.
+     */
+    Cursor press(MouseButton button) {
+        obstacle.setSelected(true);
+        if (button == MouseButton.PRIMARY && state == State.NONE) {
+            state = State.DRAGGING;
+            obstacle.setDragging(true);
+            return Cursor.CLOSED_HAND;
+        }
+        return null;
+    }
+
+    /**
+     * Stops moving the obstacle.
+     */
+    void release() {
+        state = State.NONE;
+        obstacle.setDragging(false);
+    }
+
+    /**
+     * Moves or resizes the obstacle as the mouse moved.
+     * @param pos The new position of the mouse.
+     */
+    void drag(Vec2 pos) {
+        var delta = pos.sub(lastPos);
+        lastPos = pos;
+
+        var box = obstacle.hitbox();
+        var x = box.x() + ADJ;
+        var y = box.y() + ADJ;
+        var w = box.width() - ADJ * 2;
+        var h = box.height() - ADJ * 2;
+
+        if (state == State.DRAGGING) {
+            x += delta.x();
+            y += delta.y();
+        }
+
+        if (hasState(State.RESIZE_HORIZONTAL)) {
+            if (hasState(State.RESIZE_LEFT)) {
+                x += delta.x();
+                w -= delta.x();
+            } else {
+                w += delta.x();
+            }
+            if (w < 0) {
+                x += w;
+                w = -w;
+                state ^= State.RESIZE_LEFT;
+            }
+        }
+
+        if (hasState(State.RESIZE_VERTICAL)) {
+            if (hasState(State.RESIZE_TOP)) {
+                y += delta.y();
+                h -= delta.y();
+            } else {
+                h += delta.y();
+            }
+            if (h < 0) {
+                y += h;
+                h = -h;
+                state ^= State.RESIZE_TOP;
+            }
+        }
+
+        obstacle.hitbox(new Rect(x - ADJ, y - ADJ, w + ADJ * 2, h + ADJ * 2));
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private boolean hasState(int flag) {
+        return (state & flag) == flag;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * @file
+ * @authors Martin Slezák (xsleza26), Jakub Antonín Štigler (xstigl00)
+ * @brief Drawable view of an obstacle.
+ */
+
+package ija.robots.view;
+
+import ija.robots.actors.Obstacle;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+import javafx.scene.Cursor;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Shape that draws an obstacle. The user can move and resize the obstacle
+ * with the mouse.
+ */
+public class ObstacleView {
+    /** Fill of obstacles. */
+    static final Color FILL = Color.web("#ff5555");
+    private static final double ADJ = Obstacle.BORDER_THICKNESS / 2;
+
+    private Obstacle obstacle;
+    private Rectangle shape;
+    private ObstacleDrag drag;
+
+    private Rect lastBox = null;
+    private boolean lastSelected = false;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new view of the given obstacle.
+     * @param obstacle Obstacle to view.
+     */
+    public ObstacleView(Obstacle obstacle) {
+        this.obstacle = obstacle;
+        drag = new ObstacleDrag(obstacle);
+
+        shape = new Rectangle();
+        shape.setFill(FILL);
+        shape.setStroke(Color.WHITE);
+        shape.setStrokeWidth(Obstacle.BORDER_THICKNESS);
+        shape.setOnMousePressed(e -> mousePress(e));
+        shape.setOnMouseReleased(e -> drag.release());
+        shape.setOnMouseDragged(e -> mouseDrag(e));
+        shape.setOnMouseEntered(e -> hover(e));
+        shape.setOnMouseMoved(e -> hover(e));
+        shape.setOnMouseExited(e -> shape.setCursor(Cursor.DEFAULT));
+
+        sync();
+    }
+
+    /**
+     * Gets the shape of the obstacle that can be drawn.
+     * @return Shape of the obstacle to be drawn.
+     */
+    public Rectangle getShape() {
+        return shape;
+    }
+
+    /**
+     * Updates the shape so that it matches the state of the obstacle.
+     */
+    public void sync() {
+        var box = obstacle.hitbox();
+        if (!box.equals(lastBox)) {
+            lastBox = box;
+            shape.setX(box.x() + ADJ);
+            shape.setY(box.y() + ADJ);
+            shape.setWidth(box.width() - ADJ * 2);
+            shape.setHeight(box.height() - ADJ * 2);
+        }
+
+        if (obstacle.isSelected() != lastSelected) {
+            lastSelected = obstacle.isSelected();
+            shape.setStroke(
+                lastSelected ? RobotView.SELECTED_STROKE : Color.WHITE
+            );
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void mousePress(MouseEvent event) {
+        shape.toFront();
+        var cur = drag.press(event.getButton());
+        if (cur != null) {
+            shape.setCursor(cur);
+        }
+        sync();
+    }
+
+    private void mouseDrag(MouseEvent event) {
+        drag.drag(new Vec2(event.getX(), event.getY()));
+        sync();
+    }
+
+    private void hover(MouseEvent event) {
+        shape.setCursor(drag.hover(new Vec2(event.getX(), event.getY())));
+    }
+}
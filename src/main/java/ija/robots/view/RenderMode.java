@@ -0,0 +1,23 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Ways of drawing a room.
+ */
+
+package ija.robots.view;
+
+/**
+ * Ways of drawing a room.
+ */
+public enum RenderMode {
+    /**
+     * Each object has its own shapes in the scene graph. Good for small
+     * rooms.
+     */
+    Nodes,
+    /**
+     * All objects are drawn to single canvas once per frame. Good for large
+     * rooms.
+     */
+    Canvas,
+}
@@ -0,0 +1,186 @@
+/**
+ * @file
+ * @authors Martin Slezák (xsleza26), Jakub Antonín Štigler (xstigl00)
+ * @brief Drawable view of a robot.
+ */
+
+package ija.robots.view;
+
+import ija.robots.actors.AutoRobot;
+import ija.robots.actors.ControlRobot;
+import ija.robots.actors.Robot;
+import ija.robots.common.Vec2;
+import javafx.scene.Cursor;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+
+/**
+ * Shapes that draw a robot. The shapes are synced from the robot state and
+ * user interaction with the shapes is forwarded to the robot.
+ */
+public class RobotView {
+    /** Fill of auto robots. */
+    static final Color AUTO_FILL = Color.web("#5555cc");
+    /** Fill of control robots. */
+    static final Color CONTROL_FILL = Color.web("#55cc55");
+    /** Fill of simple robots. */
+    static final Color DUMMY_FILL = Color.web("#cc55cc");
+    /** Border of selected objects. */
+    static final Color SELECTED_STROKE = Color.web("#ffff55");
+    /** Radius of the eye of a robot. */
+    static final double EYE_RADIUS = 3;
+
+    private Robot robot;
+    private Circle shape;
+    private Circle eye;
+    private Vec2 lastPos = new Vec2(0, 0);
+
+    private double lastX = Double.NaN;
+    private double lastY = Double.NaN;
+    private double lastAngle = Double.NaN;
+    private boolean lastSelected = false;
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new view of the given robot.
+     * @param robot Robot to view.
+     */
+    public RobotView(Robot robot) {
+        this.robot = robot;
+
+        shape = new Circle(Robot.RADIUS);
+        shape.setFill(fill(robot));
+        shape.setStroke(Color.WHITE);
+        shape.setStrokeWidth(Robot.BORDER_THICKNESS);
+        shape.setOnMousePressed(e -> mousePress(e, shape));
+        shape.setOnMouseDragged(e -> mouseDrag(e));
+        shape.setOnMouseReleased(e -> mouseRelease(e, shape));
+        shape.setOnMouseEntered(e -> mouseCurIfNotDrag(shape, Cursor.OPEN_HAND));
+        shape.setOnMouseExited(e -> mouseCurIfNotDrag(shape, Cursor.NONE));
+        shape.setOnMouseMoved(e -> mouseCurIfNotDrag(shape, Cursor.OPEN_HAND));
+
+        eye = new Circle(EYE_RADIUS);
+        eye.setFill(Color.WHITE);
+        eye.setStrokeWidth(0);
+        eye.setOnMousePressed(e -> mousePress(e, eye));
+        eye.setOnMouseDragged(e -> mouseDrag(e));
+        eye.setOnMouseReleased(e -> mouseRelease(e, eye));
+        eye.setOnMouseEntered(e -> mouseCurIfNotDrag(eye, Cursor.OPEN_HAND));
+        eye.setOnMouseExited(e -> mouseCurIfNotDrag(eye, Cursor.NONE));
+        eye.setOnMouseMoved(e -> mouseCurIfNotDrag(eye, Cursor.OPEN_HAND));
+
+        sync();
+    }
+
+    /**
+     * Gets the shape of the robot that can be drawn.
+     * @return Shape of the robot that can be drawn.
+     */
+    public Circle getShape() {
+        return shape;
+    }
+
+    /**
+     * Gets the shape of the eye of the robot that can be drawn.
+     * @return Shape of the eye of the robot that can be drawn.
+     */
+    public Circle getEye() {
+        return eye;
+    }
+
+    /**
+     * Updates the shapes so that they match the state of the robot. Shape
+     * properties are changed only if the robot has changed.
+     */
+    public void sync() {
+        var c = robot.center();
+        sync(c.x(), c.y(), robot.angle());
+    }
+
+    /**
+     * Updates the shapes so that the robot is drawn at the given position.
+     * Shape properties are changed only if something has changed.
+     * @param x X coordinate of the center of the robot.
+     * @param y Y coordinate of the center of the robot.
+     * @param angle Angle of the robot in radians.
+     */
+    public void sync(double x, double y, double angle) {
+        if (x != lastX || y != lastY || angle != lastAngle) {
+            lastX = x;
+            lastY = y;
+            lastAngle = angle;
+            shape.setCenterX(x);
+            shape.setCenterY(y);
+            eye.setCenterX(x + Math.cos(angle) * Robot.RADIUS * 2 / 3.);
+            eye.setCenterY(y + Math.sin(angle) * Robot.RADIUS * 2 / 3.);
+        }
+
+        if (robot.isSelected() != lastSelected) {
+            lastSelected = robot.isSelected();
+            shape.setStroke(
+                lastSelected ? SELECTED_STROKE : Color.WHITE
+            );
+        }
+    }
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Gets the fill color of the robot.
+     * @param robot The robot.
+     * @return Fill color of the robot.
+     */
+    static Color fill(Robot robot) {
+        if (robot instanceof AutoRobot) {
+            return AUTO_FILL;
+        }
+        if (robot instanceof ControlRobot) {
+            return CONTROL_FILL;
+        }
+        return DUMMY_FILL;
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void mousePress(MouseEvent event, Circle source) {
+        shape.toFront();
+        eye.toFront();
+        robot.setSelected(true);
+        if (event.getButton() == MouseButton.PRIMARY) {
+            robot.setDragging(true);
+            source.setCursor(Cursor.CLOSED_HAND);
+            lastPos = new Vec2(event.getX(), event.getY());
+        }
+        sync();
+    }
+
+    private void mouseRelease(MouseEvent event, Circle source) {
+        source.setCursor(Cursor.OPEN_HAND);
+        robot.setDragging(false);
+    }
+
+    private void mouseDrag(MouseEvent event) {
+        if (robot.isDragging()) {
+            var newPos = new Vec2(event.getX(), event.getY());
+            var delta = newPos.sub(lastPos);
+            robot.hitbox(robot.hitbox().moveBy(delta));
+            lastPos = newPos;
+            sync();
+        }
+    }
+
+    private void mouseCurIfNotDrag(Circle source, Cursor cur) {
+        if (!robot.isDragging()) {
+            source.setCursor(cur);
+        }
+    }
+}
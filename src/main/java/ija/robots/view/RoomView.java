@@ -0,0 +1,468 @@
+/**
+ * @file
+ * @authors Martin Slezák (xsleza26), Jakub Antonín Štigler (xstigl00)
+ * @brief Drawable view of a room that runs its simulation.
+ */
+
+package ija.robots.view;
+
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import ija.robots.actors.ControlRobot;
+import ija.robots.actors.FrameBuffer;
+import ija.robots.actors.Obstacle;
+import ija.robots.actors.Robot;
+import ija.robots.actors.Room;
+import ija.robots.actors.RoomSnapshot;
+import ija.robots.actors.Scheduler;
+import ija.robots.actors.SimObj;
+import ija.robots.common.Histogram;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.event.EventDispatcher;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.Pane;
+import javafx.stage.Stage;
+
+/**
+ * View of a room. Creates shapes for the objects in the room, keeps them in
+ * sync with the room and runs the simulation.
+ *
+ * The simulation runs on its own thread and publishes the positions of the
+ * robots after each batch of ticks. The view draws the latest positions at
+ * the rate of the screen, interpolated between the last two publications,
+ * so the rate of the simulation doesn't depend on the rate of drawing. The
+ * room is locked by its monitor while it is used by the simulation; the
+ * JavaFX thread must hold the lock when it uses the room, see
+ * {@link #guard(EventDispatcher)}.
+ */
+public class RoomView {
+    /** Length of single tick of the simulation in seconds. */
+    public static final double STEP = 10. / 1000.;
+    /** Maximum number of ticks that are run at once to catch up. */
+    public static final int MAX_CATCH_UP = 10;
+
+    private Room room;
+    private Pane view;
+    private Scheduler scheduler;
+    private AnimationTimer syncTimer;
+    private FrameBuffer frames = new FrameBuffer();
+
+    private RenderMode renderMode = RenderMode.Nodes;
+    private CanvasView canvasView = null;
+    private HashMap<Robot, RobotView> robots = new HashMap<>();
+    private HashMap<Obstacle, ObstacleView> obstacles = new HashMap<>();
+
+    /** Shown only while profiling, null otherwise. */
+    private MetricsOverlay overlay = null;
+    private Histogram renderHist = new Histogram();
+
+    private Executor saver = Executors.newSingleThreadExecutor(r -> {
+        var t = new Thread(r, "room-save");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Logger log = Logger.getLogger("RoomView");
+
+    //=======================================================================//
+    //                                PUBLIC                                 //
+    //=======================================================================//
+
+    /**
+     * Creates new view of the given room with ticks of length
+     * {@link #STEP}.
+     * @param room The room to view.
+     */
+    public RoomView(Room room) {
+        this(room, STEP);
+    }
+
+    /**
+     * Creates new view of the given room.
+     * @param room The room to view.
+     * @param step Length of single tick of the simulation in seconds.
+     */
+    public RoomView(Room room, double step) {
+        this.room = room;
+        view = new Pane();
+        view.setStyle("-fx-background-color: #222222");
+        resize(room.bounds());
+
+        for (var obst : room.obstacles()) {
+            add(obst);
+        }
+        for (var rob : room.robots()) {
+            add(rob);
+        }
+        room.setOnAdd(o -> add(o));
+        room.setOnRemove(o -> remove(o));
+
+        // the batches run on the thread of the scheduler, the lock is
+        // released between the ticks so that user input doesn't wait for
+        // whole batch
+        scheduler = new Scheduler(
+            step,
+            MAX_CATCH_UP,
+            r -> {
+                r.run();
+                synchronized (room) {
+                    room.publish(frames);
+                }
+            },
+            d -> {
+                synchronized (room) {
+                    room.tick(d);
+                }
+            }
+        );
+        room.publish(frames);
+        run(true);
+
+        syncTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                sync();
+            }
+        };
+        syncTimer.start();
+
+        view.setFocusTraversable(true);
+        view.setOnMousePressed(e -> view.requestFocus());
+        view.setOnKeyPressed(e -> keyListener(e, true));
+        view.setOnKeyReleased(e -> keyListener(e, false));
+    }
+
+    /**
+     * Play/pause the simulation.
+     * @param play when true simulation is played, otherwise simulation is
+     * paused.
+     */
+    public void run(boolean play) {
+        if (play == isRunning()) {
+            log.info("Simulation was already playing/paused");
+            return;
+        }
+        log.info((play ? "Playing" : "Pausing") + " the simulation.");
+        scheduler.run(play);
+    }
+
+    /**
+     * Checks whether the simulation is running.
+     * @return true if the simulation is running, otherwise false.
+     */
+    public boolean isRunning() {
+        return scheduler.isRunning();
+    }
+
+    /**
+     * Gets the way the room is drawn.
+     * @return The render mode.
+     */
+    public RenderMode renderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Sets the way the room is drawn.
+     * @param mode The new render mode.
+     * @return The new render mode.
+     */
+    public RenderMode renderMode(RenderMode mode) {
+        if (mode == renderMode) {
+            return mode;
+        }
+        log.info("Switching render mode to " + mode + ".");
+
+        renderMode = mode;
+        view.getChildren().clear();
+        robots.clear();
+        obstacles.clear();
+        if (mode == RenderMode.Canvas) {
+            canvasView = new CanvasView(room);
+            view.getChildren().add(canvasView.getCanvas());
+        } else {
+            canvasView = null;
+            for (var obst : room.obstacles()) {
+                add(obst);
+            }
+            for (var rob : room.robots()) {
+                add(rob);
+            }
+        }
+        if (overlay != null) {
+            view.getChildren().add(overlay.getNode());
+        }
+        sync();
+        return mode;
+    }
+
+    /**
+     * Gets the scheduler that runs the simulation.
+     * @return The scheduler of the simulation.
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Checks whether the durations of the ticks and of drawing are recorded
+     * and shown over the room.
+     * @return true if profiling is enabled.
+     */
+    public boolean isProfiling() {
+        return overlay != null;
+    }
+
+    /**
+     * Enables or disables recording of the durations of the ticks and of
+     * drawing and the overlay that shows them. Enabling clears the recorded
+     * durations.
+     * @param val true to enable profiling.
+     */
+    public void setProfiling(boolean val) {
+        if (val == isProfiling()) {
+            return;
+        }
+        log.info((val ? "Enabling" : "Disabling") + " profiling.");
+        synchronized (room) {
+            room.stats().setProfiling(val);
+        }
+        if (val) {
+            renderHist.reset();
+            overlay = new MetricsOverlay();
+            view.getChildren().add(overlay.getNode());
+        } else {
+            view.getChildren().remove(overlay.getNode());
+            overlay = null;
+        }
+    }
+
+    /**
+     * Copies the current performance counters of the simulation, the
+     * scheduler and the drawing. Must be called from the JavaFX thread.
+     * @return Snapshot of the counters.
+     */
+    public Metrics metrics() {
+        synchronized (room) {
+            return new Metrics(
+                room.stats().copy(),
+                new Histogram(renderHist),
+                room.robots().size(),
+                room.obstacles().size(),
+                scheduler.batches(),
+                scheduler.dropped(),
+                scheduler.coalesced(),
+                frames.published(),
+                frames.shown(),
+                frames.pending()
+            );
+        }
+    }
+
+    /**
+     * Wraps event dispatcher so that the events are handled while the room
+     * is locked and so that changes of the robots made by the handlers are
+     * published to the view. Events of the scene with the view should be
+     * dispatched through it.
+     * @param dispatcher The dispatcher to wrap.
+     * @return Dispatcher that locks the room.
+     */
+    public EventDispatcher guard(EventDispatcher dispatcher) {
+        return (event, tail) -> {
+            synchronized (room) {
+                var res = dispatcher.dispatchEvent(event, tail);
+                // changes made while paused wouldn't be published otherwise
+                room.publish(frames);
+                return res;
+            }
+        };
+    }
+
+    /**
+     * Saves room to the file
+     * @param stage window
+     * @param filename name of the file to save into
+     */
+    public void save(Stage stage, String filename) {
+        // only copy the state here, the file is written on another thread
+        log.info("Saving the room to file '" + filename + "'");
+        RoomSnapshot snap;
+        synchronized (room) {
+            snap = room.snapshot(
+                new Vec2(stage.getWidth(), stage.getHeight() - 80)
+            );
+        }
+        snap.writeAsync(filename, saver).whenComplete(
+            (r, e) -> Platform.runLater(() -> saved(e))
+        );
+    }
+
+    /**
+     * Gets the room shown by this view.
+     * @return The room.
+     */
+    public Room room() {
+        return room;
+    }
+
+    /**
+     * Gets the view of the room that can be drawn.
+     * @return Drawable view of the room.
+     */
+    public Pane getGraphics() {
+        return view;
+    }
+
+    /**
+     * Resizes the room.
+     * @param bounds The new bounds of the room.
+     */
+    public void resize(Rect bounds) {
+        synchronized (room) {
+            room.resize(bounds);
+        }
+        view.setPrefWidth(bounds.width());
+        view.setPrefHeight(bounds.height());
+        if (canvasView != null) {
+            canvasView.resize(bounds);
+        }
+    }
+
+    /**
+     * Updates all the shapes so that they match the latest published state
+     * of the room, or redraws the canvas in the canvas render mode.
+     */
+    public void sync() {
+        var start = System.nanoTime();
+        // the ticks run on the thread of the scheduler, but the listeners
+        // may change the controls, so they are notified here
+        synchronized (room) {
+            room.fireAngleChanges();
+        }
+        draw(start);
+        if (overlay == null) {
+            return;
+        }
+        var now = System.nanoTime();
+        renderHist.record(now - start);
+        if (overlay.isDue(now)) {
+            overlay.update(metrics(), now);
+            // robots added since the last update are above the overlay
+            overlay.getNode().toFront();
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private void draw(long now) {
+        var frame = frames.latest();
+        var alpha = frame.alpha(now);
+        if (canvasView != null) {
+            canvasView.draw(frame, alpha);
+            return;
+        }
+        for (var o : obstacles.values()) {
+            o.sync();
+        }
+        for (int i = 0; i < frame.count(); ++i) {
+            // robots that were removed may still be in the frame
+            var r = robots.get(frame.robot(i));
+            if (r != null) {
+                r.sync(
+                    frame.x(i, alpha),
+                    frame.y(i, alpha),
+                    frame.angle(i, alpha)
+                );
+            }
+        }
+    }
+
+    private void saved(Throwable e) {
+        if (e != null) {
+            // the error is wrapped by the future and by the writer
+            while (e.getCause() != null) {
+                e = e.getCause();
+            }
+            log.severe("Failed to save room: " + e.getMessage());
+            Alert alert = new Alert(AlertType.ERROR, e.getMessage());
+            alert.show();
+            return;
+        }
+
+        Alert alert = new Alert(
+            AlertType.CONFIRMATION,
+            "The room was successfully saved"
+        );
+        alert.show();
+    }
+
+    private void add(SimObj obj) {
+        // the canvas draws directly from the room
+        if (renderMode == RenderMode.Canvas) {
+            return;
+        }
+        if (obj instanceof Robot r) {
+            var rv = new RobotView(r);
+            robots.put(r, rv);
+            view.getChildren().add(rv.getShape());
+            view.getChildren().add(rv.getEye());
+        } else if (obj instanceof Obstacle o) {
+            var ov = new ObstacleView(o);
+            obstacles.put(o, ov);
+            view.getChildren().add(ov.getShape());
+        }
+    }
+
+    private void remove(SimObj obj) {
+        if (obj instanceof Robot r) {
+            var rv = robots.remove(r);
+            if (rv != null) {
+                view.getChildren().remove(rv.getShape());
+                view.getChildren().remove(rv.getEye());
+            }
+        } else if (obj instanceof Obstacle o) {
+            var ov = obstacles.remove(o);
+            if (ov != null) {
+                view.getChildren().remove(ov.getShape());
+            }
+        }
+    }
+
+    private void keyListener(KeyEvent event, boolean start) {
+        var selected = room.selected();
+        if (selected != null && event.getCode() == KeyCode.DELETE) {
+            room.remove(selected);
+            return;
+        }
+
+        if (!isRunning() || !(selected instanceof ControlRobot))
+            return;
+
+        var rob = (ControlRobot)selected;
+        switch (event.getCode()) {
+            case UP:
+                rob.forward(start);
+                break;
+            case RIGHT:
+                rob.right(start);
+                break;
+            case LEFT:
+               rob.left(start);
+                break;
+            default:
+                return;
+        }
+        event.consume();
+    }
+}
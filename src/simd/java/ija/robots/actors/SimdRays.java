@@ -0,0 +1,104 @@
+/**
+ * @file
+ * @authors Jakub Antonín Štigler (xstigl00)
+ * @brief Ray casts against groups of obstacles with SIMD instructions.
+ */
+
+package ija.robots.actors;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Distance along a ray to the closest of {@link #LANES} rectangles, all
+ * computed at once with the vector API. Each lane does the same operations
+ * as {@link ObstacleTree#rectDistance}, so the results are the same to the
+ * last bit.
+ *
+ * The vector API is in incubating module, so this class is compiled only
+ * with the {@code simd} profile and it can be loaded only when the program
+ * runs with {@code --add-modules jdk.incubator.vector}.
+ * {@link ObstacleTree} creates it by reflection when both are true.
+ */
+final class SimdRays implements LeafRays {
+    private static final VectorSpecies<Double> SPECIES =
+        DoubleVector.SPECIES_256;
+    /** Number of rectangles tested at once. */
+    static final int LANES = SPECIES.length();
+
+    private static final DoubleVector INF =
+        DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+
+    //=======================================================================//
+    //                               PACKAGE                                 //
+    //=======================================================================//
+
+    /**
+     * Creates the ray caster.
+     * @throws UnsupportedOperationException when the vector operations are
+     * not compiled to SIMD instructions on this machine. Without them the
+     * vector API is much slower than scalar code.
+     */
+    SimdRays() {
+        if (DoubleVector.SPECIES_PREFERRED.vectorBitSize()
+            < SPECIES.vectorBitSize()
+        ) {
+            throw new UnsupportedOperationException(
+                "SIMD vectors of " + LANES + " doubles are not supported"
+            );
+        }
+    }
+
+    @Override
+    public double rectDistance(
+        double px,
+        double py,
+        double dx,
+        double dy,
+        double[] l,
+        double[] t,
+        double[] r,
+        double[] b,
+        int off
+    ) {
+        var vl = DoubleVector.fromArray(SPECIES, l, off);
+        var vt = DoubleVector.fromArray(SPECIES, t, off);
+        var vr = DoubleVector.fromArray(SPECIES, r, off);
+        var vb = DoubleVector.fromArray(SPECIES, b, off);
+
+        // edges parallel with the ray give infinity or NaN and never hit
+        var res = edgeDistance(px, py, dx, dy, vt, vl, vr);
+        res = res.min(edgeDistance(px, py, dx, dy, vb, vl, vr));
+        res = res.min(edgeDistance(py, px, dy, dx, vl, vt, vb));
+        res = res.min(edgeDistance(py, px, dy, dx, vr, vt, vb));
+        return res.reduceLanes(VectorOperators.MIN);
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    /**
+     * Vector version of the edge test in {@link ObstacleTree}: distance
+     * along the ray to the segments at pos on the second axis that span
+     * from start to end on the first axis.
+     */
+    private static DoubleVector edgeDistance(
+        double p1,
+        double p2,
+        double d1,
+        double d2,
+        DoubleVector pos,
+        DoubleVector start,
+        DoubleVector end
+    ) {
+        var t = pos.sub(p2).div(d2);
+        var hit = t.mul(d1).add(p1);
+        VectorMask<Double> ok = t.compare(VectorOperators.GE, 0)
+            .and(hit.compare(VectorOperators.GT, start))
+            .and(hit.compare(VectorOperators.LT, end));
+        return INF.blend(t, ok);
+    }
+}
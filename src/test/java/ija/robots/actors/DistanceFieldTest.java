@@ -0,0 +1,110 @@
+package ija.robots.actors;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ija.robots.common.Rect;
+
+/**
+ * Tests that rays traced over the distance field hit the same obstacles as
+ * the rays cast through the tree.
+ */
+public class DistanceFieldTest {
+    private static final Rect BOUNDS = new Rect(0, 0, 2000, 2000);
+    private static final double MAX = 5000;
+
+    private Random rng = new Random(42);
+    private Parallel.Scratch scratch = new Parallel.Scratch();
+
+    /**
+     * Traced rays match the exact ray casts after the field is built and
+     * after obstacles are moved, added and removed, which refreshes only
+     * parts of the field.
+     */
+    @Test
+    public void traceMatchesRayCast() {
+        var obstacles = new ArrayList<Obstacle>();
+        for (int i = 0; i < 200; ++i) {
+            obstacles.add(randomObstacle());
+        }
+        var tree = new ObstacleTree();
+        var field = new DistanceField();
+        tree.build(obstacles);
+        field.update(obstacles, tree, BOUNDS);
+        assertTraces(obstacles, tree, field, obstacles);
+
+        for (int round = 0; round < 5; ++round) {
+            var changed = new ArrayList<Obstacle>();
+            // moved
+            var moved = obstacles.get(rng.nextInt(obstacles.size()));
+            var box = moved.hitbox();
+            moved.hitbox(new Rect(
+                box.left() + rng.nextInt(200) - 100,
+                box.top() + rng.nextInt(200) - 100,
+                box.width(),
+                box.height()
+            ));
+            changed.add(moved);
+            // added
+            var added = randomObstacle();
+            obstacles.add(added);
+            changed.add(added);
+            // removed, rays are aimed at the place where it was
+            var removed = obstacles.remove(rng.nextInt(obstacles.size()));
+            changed.add(removed);
+
+            tree.build(obstacles);
+            field.update(obstacles, tree, BOUNDS);
+            assertTraces(obstacles, tree, field, changed);
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private Obstacle randomObstacle() {
+        return new Obstacle(new Rect(
+            rng.nextDouble() * 1900,
+            rng.nextDouble() * 1900,
+            5 + rng.nextDouble() * 80,
+            5 + rng.nextDouble() * 80
+        ));
+    }
+
+    /**
+     * Casts random rays and rays aimed at the given obstacles.
+     */
+    private void assertTraces(
+        List<Obstacle> obstacles,
+        ObstacleTree tree,
+        DistanceField field,
+        List<Obstacle> targets
+    ) {
+        for (int i = 0; i < 5000; ++i) {
+            var px = rng.nextDouble() * BOUNDS.width();
+            var py = rng.nextDouble() * BOUNDS.height();
+            double dx, dy;
+            if (i % 2 == 0) {
+                var a = rng.nextDouble() * Math.PI * 2;
+                dx = Math.cos(a);
+                dy = Math.sin(a);
+            } else {
+                var box = targets.get(rng.nextInt(targets.size())).hitbox();
+                dx = box.left() + rng.nextDouble() * box.width() - px;
+                dy = box.top() + rng.nextDouble() * box.height() - py;
+                var len = Math.sqrt(dx * dx + dy * dy);
+                dx /= len;
+                dy /= len;
+            }
+            var exp = tree.rayCast(px, py, dx, dy, MAX, scratch.stack);
+            var res = field.trace(px, py, dx, dy, MAX, tree, scratch);
+            assertEquals(px + ", " + py + " -> " + dx + ", " + dy, exp, res, 0);
+        }
+    }
+}
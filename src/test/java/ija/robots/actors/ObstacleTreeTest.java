@@ -0,0 +1,82 @@
+package ija.robots.actors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ija.robots.common.Rect;
+
+/**
+ * Tests of the ray casts of the obstacle tree.
+ */
+public class ObstacleTreeTest {
+    /**
+     * Rays cast with SIMD instructions give the same distances to the last
+     * bit as the scalar edge test. Runs only in builds with the simd
+     * profile on machines that support it.
+     */
+    @Test
+    public void simdMatchesScalar() {
+        assumeTrue(ObstacleTree.SIMD);
+        var rng = new Random(42);
+        var stack = new IntList();
+        // counts that aren't multiples of the leaf size leave NaN slots
+        for (var cnt : new int[] { 1, 3, 7, 50, 1001 }) {
+            var obstacles = new ArrayList<Obstacle>();
+            for (int i = 0; i < cnt; ++i) {
+                // integer sides so that the grazing rays hit them exactly
+                obstacles.add(new Obstacle(new Rect(
+                    rng.nextInt(1000),
+                    rng.nextInt(1000),
+                    1 + rng.nextInt(60),
+                    1 + rng.nextInt(60)
+                )));
+            }
+            var scalar = new ObstacleTree();
+            scalar.build(obstacles);
+            var simd = new ObstacleTree();
+            simd.setSimd(true);
+            simd.build(obstacles);
+            assertEquals(true, simd.isSimd());
+
+            for (int i = 0; i < 20_000; ++i) {
+                double px, py, dx, dy;
+                if (i % 2 == 0) {
+                    px = rng.nextDouble() * 1100 - 50;
+                    py = rng.nextDouble() * 1100 - 50;
+                    var a = rng.nextDouble() * Math.PI * 2;
+                    dx = Math.cos(a);
+                    dy = Math.sin(a);
+                } else {
+                    // axis aligned rays along the lines of the edges
+                    var box = obstacles.get(rng.nextInt(cnt)).hitbox();
+                    var horizontal = rng.nextBoolean();
+                    var sign = rng.nextBoolean() ? 1 : -1;
+                    px = horizontal ? -10 : box.left();
+                    py = horizontal ? box.top() : -10;
+                    if (rng.nextBoolean()) {
+                        px = horizontal ? px : box.right();
+                        py = horizontal ? box.bottom() : py;
+                    }
+                    if (sign < 0) {
+                        px = horizontal ? 1100 : px;
+                        py = horizontal ? py : 1100;
+                    }
+                    dx = horizontal ? sign : 0;
+                    dy = horizontal ? 0 : sign;
+                }
+                var exp = scalar.rayCast(px, py, dx, dy, 2000, stack);
+                var res = simd.rayCast(px, py, dx, dy, 2000, stack);
+                assertEquals(
+                    px + ", " + py + " -> " + dx + ", " + dy,
+                    Double.doubleToLongBits(exp),
+                    Double.doubleToLongBits(res)
+                );
+            }
+        }
+    }
+}
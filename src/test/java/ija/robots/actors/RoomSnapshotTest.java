@@ -0,0 +1,173 @@
+package ija.robots.actors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+import ija.robots.load.Loader;
+
+/**
+ * Tests of saving rooms from snapshots.
+ */
+public class RoomSnapshotTest {
+    /**
+     * The text format is the same as the one written from the text of the
+     * objects, for all kinds of robots.
+     */
+    @Test
+    public void textMatchesObjects() throws Exception {
+        var room = new Room(new Rect(0, 0, 1, 1));
+        var size = new Loader("data/hello.txt").load(room);
+        room.add(new AutoRobot(
+            new Vec2(10.25, -3.5), 60, 1.2345678, 20, 0.7, 0.9
+        ));
+        room.add(new ControlRobot(new Vec2(1e-7, 1e8), -0.5, -2, 0.33));
+        room.add(new Obstacle(new Rect(0.0000005, 7, 1e7, 1. / 3)));
+
+        var exp = new StringBuilder();
+        exp.append("room: " + size.width() + "x" + size.height() + "\n");
+        for (var o : room.obstacles()) {
+            exp.append(o + "\n");
+        }
+        for (var r : room.robots()) {
+            exp.append(r + "\n");
+        }
+
+        assertEquals(exp.toString(), text(room.snapshot(size)));
+    }
+
+    /**
+     * Room saved in the binary format loads with the same values, so it is
+     * saved the same again.
+     */
+    @Test
+    public void binaryRoundTrip() throws Exception {
+        var room = new Room(new Rect(0, 0, 1, 1));
+        var size = new Vec2(903.5, 550);
+        room.add(new Obstacle(new Rect(0.1, 0.2, 30.3, 1. / 3)));
+        room.add(new Robot(new Vec2(10, 20), 35.5, -Math.PI / 3));
+        room.add(new AutoRobot(
+            new Vec2(10.25, -3.5), 60, 1.2345678, 20, 0.7, 0.9
+        ));
+        room.add(new ControlRobot(new Vec2(1e-7, 1e8), -0.5, -2, 0.33));
+        var saved = binary(room.snapshot(size));
+
+        var head = ByteBuffer.wrap(saved).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(RoomSnapshot.MAGIC, head.getLong(0));
+        assertEquals(RoomSnapshot.VERSION, head.getInt(8));
+        assertEquals(903.5, head.getDouble(16), 0);
+        assertEquals(550, head.getDouble(24), 0);
+        assertEquals(1, head.getInt(32));
+        assertEquals(3, head.getInt(36));
+        // robot, auto robot and control robot have 0, 3 and 1 extra values
+        assertEquals(
+            RoomSnapshot.HEADER_SIZE
+                + RoomSnapshot.OBSTACLE_SIZE
+                + 3 * RoomSnapshot.MIN_ROBOT_SIZE
+                + 4 * Double.BYTES,
+            saved.length
+        );
+
+        var file = temp(saved);
+        var loaded = new Room(new Rect(0, 0, 1, 1));
+        assertEquals(size, new Loader(file.toString()).load(loaded));
+        assertArrayEquals(saved, binary(loaded.snapshot(size)));
+
+        var robots = loaded.robots();
+        assertEquals(3, robots.size());
+        assertEquals(Robot.class, robots.get(0).getClass());
+        assertEquals(-Math.PI / 3, robots.get(0).angle(), 0);
+        var auto = (AutoRobot)robots.get(1);
+        assertEquals(20, auto.edist(), 0);
+        assertEquals(0.7, auto.erot(), 0);
+        assertEquals(0.9, auto.rspeed(), 0);
+        assertEquals(0.33, ((ControlRobot)robots.get(2)).rspeed(), 0);
+    }
+
+    /**
+     * Invalid binary files fail with an error and leave the room unchanged.
+     */
+    @Test
+    public void binaryRejectsInvalid() throws Exception {
+        var room = new Room(new Rect(0, 0, 1, 1));
+        room.add(new Obstacle(new Rect(0, 0, 10, 10)));
+        room.add(new AutoRobot(new Vec2(5, 5), 60, 1, 20, 0.7, 0.9));
+        var saved = binary(room.snapshot(new Vec2(100, 100)));
+
+        assertFails(
+            Arrays.copyOf(saved, RoomSnapshot.HEADER_SIZE - 1),
+            "Truncated header"
+        );
+        // the header fits, but the extra values of the auto robot don't
+        assertFails(
+            Arrays.copyOf(saved, saved.length - 1),
+            "Truncated binary room"
+        );
+        assertFails(patch(saved, 36, 2), "Invalid number of objects");
+        assertFails(
+            patch(saved, 8, RoomSnapshot.VERSION + 1),
+            "Unsupported binary room version"
+        );
+        assertFails(patch(saved, 32, -1), "Invalid number of objects");
+        assertFails(patch(saved, 36, -1), "Invalid number of objects");
+        var robot = RoomSnapshot.HEADER_SIZE + RoomSnapshot.OBSTACLE_SIZE;
+        assertFails(patch(saved, robot, 7), "Unknown robot type 7");
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private static String text(RoomSnapshot snap) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        snap.write(Channels.newChannel(bytes));
+        return bytes.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] binary(RoomSnapshot snap) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        snap.writeBinary(Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static byte[] patch(byte[] data, int off, int val) {
+        var res = data.clone();
+        ByteBuffer.wrap(res).order(ByteOrder.LITTLE_ENDIAN).putInt(off, val);
+        return res;
+    }
+
+    private static Path temp(byte[] data) throws IOException {
+        var file = Files.createTempFile("room", RoomSnapshot.BINARY_EXTENSION);
+        file.toFile().deleteOnExit();
+        Files.write(file, data);
+        return file;
+    }
+
+    private static void assertFails(byte[] data, String msg) throws Exception {
+        var room = new Room(new Rect(0, 0, 1, 1));
+        room.add(new Obstacle(new Rect(0, 0, 1, 1)));
+        try {
+            new Loader(temp(data).toString()).load(room);
+            fail("Loaded invalid room");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(msg));
+        }
+        assertEquals(1, room.obstacles().size());
+        assertEquals(0, room.robots().size());
+    }
+}
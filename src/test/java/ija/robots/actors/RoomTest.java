@@ -0,0 +1,294 @@
+package ija.robots.actors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+
+/**
+ * Tests of the simulation that run without any graphics.
+ */
+public class RoomTest {
+    /**
+     * Robot moves forward in the direction it is facing.
+     */
+    @Test
+    public void robotMovesHeadless() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        var rob = new Robot(new Vec2(100, 100), 20, 0);
+        room.add(rob);
+
+        for (int i = 0; i < 100; ++i) {
+            room.tick(0.01);
+        }
+
+        assertEquals(120, rob.center().x() - Robot.RADIUS, 1e-9);
+        assertEquals(100, rob.center().y() - Robot.RADIUS, 1e-9);
+    }
+
+    /**
+     * Robot is stopped by an obstacle in front of it.
+     */
+    @Test
+    public void obstacleStopsRobot() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        var obst = new Obstacle(new Rect(200, 0, 50, 500));
+        var rob = new Robot(new Vec2(100, 100), 100, 0);
+        room.add(obst);
+        room.add(rob);
+
+        for (int i = 0; i < 300; ++i) {
+            room.tick(0.01);
+        }
+
+        assertTrue(rob.hitbox().right() <= obst.hitbox().left() + 1e-9);
+    }
+
+    /**
+     * Fast robot with long ticks doesn't pass through thin obstacle when
+     * the collisions are continuous.
+     */
+    @Test
+    public void continuousStopsAtThinObstacle() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        room.setContinuous(true);
+        var obst = new Obstacle(new Rect(300, 0, 4, 500));
+        var rob = new Robot(new Vec2(100, 100), 200, 0);
+        room.add(obst);
+        room.add(rob);
+
+        for (int i = 0; i < 5; ++i) {
+            room.tick(1);
+        }
+
+        assertTrue(rob.hitbox().right() <= obst.hitbox().left() + 1e-9);
+    }
+
+    /**
+     * Fast robots moving against each other don't swap places when the
+     * collisions are continuous.
+     */
+    @Test
+    public void continuousStopsRobots() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        room.setContinuous(true);
+        var a = new Robot(new Vec2(100, 100), 300, 0);
+        var b = new Robot(new Vec2(400, 100), 300, Math.PI);
+        room.add(a);
+        room.add(b);
+
+        room.tick(1);
+
+        assertTrue(a.center().x() < b.center().x());
+    }
+
+    /**
+     * Robot that stands still falls asleep and wakes up when it is given
+     * speed.
+     */
+    @Test
+    public void stillRobotSleeps() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        var rob = new Robot(new Vec2(100, 100), 0, 0);
+        room.add(rob);
+
+        for (int i = 0; i <= Room.SLEEP_TICKS; ++i) {
+            room.tick(0.01);
+        }
+        assertEquals(1, room.sleepingRobots());
+
+        rob.speed(100);
+        assertEquals(0, room.sleepingRobots());
+        room.tick(0.1);
+
+        assertEquals(110, rob.center().x() - Robot.RADIUS, 1e-9);
+    }
+
+    /**
+     * Ticks on another thread don't call the angle listeners, the change is
+     * reported later on the thread that asks for it.
+     */
+    @Test
+    public void angleChangeFiredOutsideTick() throws Exception {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        var rob = new ControlRobot(new Vec2(100, 100), 0, 0, 1);
+        room.add(rob);
+        var threads = new ArrayList<Thread>();
+        rob.setOnAngleChange(a -> threads.add(Thread.currentThread()));
+        rob.left(true);
+
+        var ticker = new Thread(() -> {
+            for (int i = 0; i < 10; ++i) {
+                room.tick(0.01);
+            }
+        });
+        ticker.start();
+        ticker.join();
+        assertTrue(threads.isEmpty());
+
+        room.fireAngleChanges();
+        room.fireAngleChanges();
+        assertEquals(1, threads.size());
+        assertSame(Thread.currentThread(), threads.get(0));
+    }
+
+    /**
+     * Control robot that senses robots stops in front of other robot that
+     * it would hit off its center and doesn't push it away.
+     */
+    @Test
+    public void controlRobotStopsAtRobot() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        room.setRobotSensing(true);
+        var ang = 0.3;
+        var ctl = new ControlRobot(new Vec2(100, 100), 200, ang, 0);
+        var dir = Vec2.unit(ang);
+        var side = Vec2.unit(ang + Math.PI / 2);
+        var pos = ctl.center()
+            .add(dir.mul(150))
+            .add(side.mul(Robot.HALF))
+            .sub(new Vec2(Robot.RADIUS, Robot.RADIUS));
+        var other = new Robot(pos, 0, 0);
+        room.add(ctl);
+        room.add(other);
+        var start = other.center();
+        ctl.forward(true);
+
+        for (int i = 0; i < 200; ++i) {
+            room.tick(0.01);
+        }
+
+        var gap = ctl.center().sub(other.center()).len();
+        assertTrue(gap >= Robot.HALF * 2 - 1e-9);
+        assertEquals(0, ctl.speed(), 0);
+        // at most the overlap of the last step is pushed apart
+        assertTrue(other.center().sub(start).len() < 200 * 0.01);
+    }
+
+    /**
+     * Robots are found above obstacles and follow the robot when it moves.
+     */
+    @Test
+    public void objectAtFindsTopmost() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        var obst = new Obstacle(new Rect(100, 100, 200, 200));
+        var rob = new Robot(new Vec2(150, 150), 0, 0);
+        room.add(obst);
+        room.add(rob);
+
+        var c = rob.center();
+        assertSame(rob, room.objectAt(c.x(), c.y()));
+        assertSame(obst, room.objectAt(280, 280));
+        assertNull(room.objectAt(500, 400));
+
+        rob.hitbox(rob.hitbox().moveBy(new Vec2(300, 0)));
+        assertSame(obst, room.objectAt(c.x(), c.y()));
+        assertSame(rob, room.objectAt(c.x() + 300, c.y()));
+    }
+
+    /**
+     * Published frame holds the positions before and after the last tick and
+     * is published only when something has changed.
+     */
+    @Test
+    public void framesInterpolateBetweenTicks() {
+        var room = new Room(new Rect(0, 0, 900, 500));
+        var rob = new Robot(new Vec2(100, 100), 100, 0);
+        room.add(rob);
+
+        var frames = new FrameBuffer();
+        assertTrue(room.publish(frames));
+        var x0 = rob.center().x();
+        room.tick(0.01);
+        assertTrue(room.publish(frames));
+        assertFalse(room.publish(frames));
+
+        var frame = frames.latest();
+        assertEquals(1, frame.count());
+        assertSame(rob, frame.robot(0));
+        assertEquals(x0, frame.x(0, 0), 1e-9);
+        assertEquals(x0 + 1, frame.x(0, 1), 1e-9);
+        assertEquals(x0 + 0.5, frame.x(0, 0.5), 1e-9);
+        assertEquals(1, frame.alpha(frame.nanos() + 1_000_000_000), 0);
+    }
+
+    /**
+     * Jacobi collisions give the same result for any order of the robots and
+     * any number of threads.
+     */
+    @Test
+    public void jacobiIndependentOfOrder() {
+        var rng = new Random(42);
+        var pos = new ArrayList<Vec2>();
+        for (int i = 0; i < 2000; ++i) {
+            pos.add(new Vec2(rng.nextDouble() * 2000, rng.nextDouble() * 2000));
+        }
+
+        var pool = new ForkJoinPool(4);
+        var a = room(pos, CollisionMode.Jacobi, false, null);
+        var b = room(pos, CollisionMode.Jacobi, true, pool);
+        pool.shutdown();
+
+        for (int i = 0; i < pos.size(); ++i) {
+            var ra = a.robots().get(i).center();
+            var rb = b.robots().get(pos.size() - i - 1).center();
+            assertEquals(ra.x(), rb.x(), 0);
+            assertEquals(ra.y(), rb.y(), 0);
+        }
+    }
+
+    /**
+     * Robots in the default ordered mode end at the same positions when the
+     * strips run in parallel. The room has enough strips that many robots
+     * collide across their borders.
+     */
+    @Test
+    public void orderedIndependentOfPool() {
+        var rng = new Random(42);
+        var pos = new ArrayList<Vec2>();
+        for (int i = 0; i < 2000; ++i) {
+            pos.add(new Vec2(rng.nextDouble() * 2000, rng.nextDouble() * 2000));
+        }
+
+        var pool = new ForkJoinPool(4);
+        var a = room(pos, CollisionMode.Ordered, false, null);
+        var b = room(pos, CollisionMode.Ordered, false, pool);
+        pool.shutdown();
+
+        for (int i = 0; i < pos.size(); ++i) {
+            var ra = a.robots().get(i).center();
+            var rb = b.robots().get(i).center();
+            assertEquals(ra.x(), rb.x(), 0);
+            assertEquals(ra.y(), rb.y(), 0);
+        }
+    }
+
+    private static Room room(
+        ArrayList<Vec2> pos,
+        CollisionMode mode,
+        boolean reverse,
+        ForkJoinPool pool
+    ) {
+        var room = new Room(new Rect(0, 0, 2100, 2100));
+        room.pool(pool);
+        room.collisionMode(mode);
+        for (int i = 0; i < pos.size(); ++i) {
+            var p = pos.get(reverse ? pos.size() - i - 1 : i);
+            room.add(new Robot(p, 50, p.x() + p.y()));
+        }
+        for (int i = 0; i < 100; ++i) {
+            room.tick(0.05);
+        }
+        return room;
+    }
+}
@@ -0,0 +1,89 @@
+package ija.robots.common;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that numbers are written the same as by {@link String#format}.
+ */
+public class TextWriterTest {
+    /**
+     * Special values and values close to the edges of the fast path.
+     */
+    @Test
+    public void fixedMatchesFormatEdges() throws IOException {
+        double[] values = {
+            0., -0., 1., -1., 0.5, -0.5,
+            // ties and values right next to them
+            0.0000005, -0.0000005, 0.0000015, 0.0000025, 1.0000005,
+            2.5e-7, 4.9999999e-7, 5.0000001e-7, 0.1234565, 0.1234575,
+            Math.nextUp(0.0000005), Math.nextDown(0.0000005),
+            // tiny values round to zero
+            Double.MIN_VALUE, -Double.MIN_VALUE, 1e-300, -1e-300, 1e-7,
+            -1e-7, Double.MIN_NORMAL,
+            // around the end of the fast path
+            9999999.999999, 9999999.9999995, 9999999.9999996,
+            Math.nextDown(1e7), 1e7, -1e7, Math.nextUp(1e7),
+            // huge values
+            1e15, 123456789012.345678, 1e300, -1e300, Double.MAX_VALUE,
+            -Double.MAX_VALUE,
+            // values not handled by the fast path
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+        };
+        for (var v : values) {
+            assertFixed(v);
+        }
+    }
+
+    /**
+     * Random values with few decimal places, like the ones in room files.
+     */
+    @Test
+    public void fixedMatchesFormatDecimals() throws IOException {
+        var rng = new Random(42);
+        for (int i = 0; i < 100_000; ++i) {
+            var places = rng.nextInt(9);
+            var v = (rng.nextLong() % 100_000_000_000L)
+                / Math.pow(10, places);
+            assertFixed(v);
+        }
+    }
+
+    /**
+     * Random values of all magnitudes and random bit patterns.
+     */
+    @Test
+    public void fixedMatchesFormatRandom() throws IOException {
+        var rng = new Random(42);
+        for (int i = 0; i < 100_000; ++i) {
+            var exp = rng.nextInt(20) - 8;
+            var v = (rng.nextDouble() * 2 - 1) * Math.pow(10, exp);
+            assertFixed(v);
+            assertFixed(Double.longBitsToDouble(rng.nextLong()));
+        }
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private static void assertFixed(double v) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var w = new TextWriter(Channels.newChannel(bytes), 16)) {
+            w.writeFixed(v);
+        }
+        assertEquals(
+            "value " + v,
+            String.format(Locale.ROOT, "%f", v),
+            bytes.toString(StandardCharsets.US_ASCII)
+        );
+    }
+}
@@ -0,0 +1,140 @@
+package ija.robots.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import ija.robots.actors.AutoRobot;
+import ija.robots.actors.ControlRobot;
+import ija.robots.actors.Obstacle;
+import ija.robots.actors.Robot;
+import ija.robots.actors.Room;
+import ija.robots.common.Rect;
+import ija.robots.common.Vec2;
+
+/**
+ * Tests of loading rooms from the text format.
+ */
+public class LoaderTest {
+    /**
+     * The example rooms load with all their objects.
+     */
+    @Test
+    public void loadsExampleRooms() throws Exception {
+        assertRoom("data/hello.txt", new Vec2(900, 520), 15, 5);
+        assertRoom("data/ija.txt", new Vec2(903, 550), 8, 4);
+        assertRoom("data/maze.txt", new Vec2(903, 550), 19, 4);
+    }
+
+    /**
+     * Attributes of all the objects are read and angles are converted
+     * from degrees.
+     */
+    @Test
+    public void loadsAttributes() throws Exception {
+        var room = load(
+            "room: 100x50\n"
+            + "obstacle: 10x20 [1, 2]\n"
+            + "robot: [3, 4] { speed: 5, angle: 90 }\n"
+            + "auto_robot: [6, 7] { speed: -1.5, angle: 0,"
+            + " rotation_speed: 180, elide_distance: 30,"
+            + " elide_rotation: 45 }\n"
+            + "control_robot: [8, 9] { rotation_speed: 90 }\n"
+        );
+        var rad = Math.PI / 180;
+
+        assertEquals(1, room.obstacles().size());
+        assertEquals(
+            new Rect(1, 2, 10, 20),
+            room.obstacles().get(0).hitbox()
+        );
+
+        var robots = room.robots();
+        assertEquals(3, robots.size());
+        var rob = robots.get(0);
+        assertEquals(Robot.class, rob.getClass());
+        assertEquals(5, rob.speed(), 0);
+        assertEquals(-90 * rad, rob.angle(), 1e-12);
+
+        var auto = (AutoRobot)robots.get(1);
+        assertEquals(-1.5, auto.speed(), 0);
+        assertEquals(180 * rad, auto.rspeed(), 1e-12);
+        assertEquals(30, auto.edist(), 0);
+        assertEquals(45 * rad, auto.erot(), 1e-12);
+
+        var control = (ControlRobot)robots.get(2);
+        assertEquals(90 * rad, control.angle(), 1e-12);
+        assertEquals(90 * rad, control.rspeed(), 1e-12);
+    }
+
+    /**
+     * Invalid files fail with an error and leave the room unchanged.
+     */
+    @Test
+    public void rejectsMalformedInput() throws Exception {
+        assertFails(
+            "robot: [3, 4] { speed: 5 angle: 90 }",
+            "Missing attribute separator"
+        );
+        assertFails("obstacle: 10x20 [1, 2", "Unclosed position");
+        assertFails("obstacle: 10x20 [1 2]", "Position missing");
+        assertFails("wall: 10x20 [1, 2]", "Unexpected identifier 'wall'");
+        assertFails(
+            "robot: [3, 4] { color: 5 }",
+            "Unexpected robot attribute"
+        );
+        assertFails("room 10x20", "Identifier must be followed by ':'");
+        assertFails("obstacle: 10x20 [1, 2] #", "Unexpected character '#'");
+    }
+
+    //=======================================================================//
+    //                               PRIVATE                                 //
+    //=======================================================================//
+
+    private static void assertRoom(
+        String file,
+        Vec2 size,
+        int obstacles,
+        int robots
+    ) throws Exception {
+        var room = new Room(new Rect(0, 0, 1, 1));
+        var res = new Loader(file).load(room);
+        assertEquals(size, res);
+        assertEquals(obstacles, room.obstacles().size());
+        assertEquals(robots, room.robots().size());
+    }
+
+    private static Room load(String text) throws Exception {
+        var room = new Room(new Rect(0, 0, 1, 1));
+        new Loader(write(text).toString()).load(room);
+        return room;
+    }
+
+    private static void assertFails(
+        String text,
+        String msg
+    ) throws IOException {
+        var room = new Room(new Rect(0, 0, 1, 1));
+        room.add(new Obstacle(new Rect(0, 0, 1, 1)));
+        try {
+            new Loader(write(text).toString()).load(room);
+            fail("Loaded invalid room: " + text);
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(msg));
+        }
+        assertEquals(1, room.obstacles().size());
+    }
+
+    private static Path write(String text) throws IOException {
+        var file = Files.createTempFile("room", ".txt");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, text);
+        return file;
+    }
+}